@@ -0,0 +1,71 @@
+package com.light.minio.benchmark;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import com.light.minio.util.MinioClientUtils;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 启动 S3StandIn 和只包含 MinioConfig、MinioClientUtils 的 Spring 容器
+ */
+public class BenchmarkEnvironment implements AutoCloseable {
+
+    public static final String BUCKET = "bench";
+
+    private final S3StandIn server;
+
+    private final ConfigurableApplicationContext context;
+
+    /**
+     * @param latencyMillis  每个请求的额外延迟（毫秒）
+     * @param bytesPerSecond 传输速率，小于等于 0 表示不限速
+     * @param properties     额外的 spring.minio.* 配置
+     */
+    public BenchmarkEnvironment(long latencyMillis, long bytesPerSecond, Map<String, Object> properties) throws IOException {
+        this.server = new S3StandIn(latencyMillis, bytesPerSecond);
+        server.createBucket(BUCKET);
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.minio.endpoints[0]", server.getEndpoint());
+        defaults.put("spring.minio.access-key", "benchmark");
+        defaults.put("spring.minio.secret-key", "benchmark-secret");
+        defaults.put("spring.minio.secure", false);
+        defaults.put("spring.minio.bucket-name", BUCKET);
+        defaults.putAll(properties);
+        this.context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(defaults)
+                .run();
+    }
+
+    public S3StandIn getServer() {
+        return server;
+    }
+
+    public MinioClientUtils getMinioClientUtils() {
+        return context.getBean(MinioClientUtils.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        server.close();
+    }
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({MinioConfig.class, MinioClientUtils.class})
+    static class Application {
+    }
+}
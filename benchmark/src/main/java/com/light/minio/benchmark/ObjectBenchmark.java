@@ -0,0 +1,210 @@
+package com.light.minio.benchmark;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.util.MinioClientUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MinioClientUtils 常用操作的吞吐量和延迟分布
+ * caches=false 时关闭存储桶/元数据缓存、请求合并和预签名缓存，可对比每次调用实际的请求开销
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectBenchmark {
+
+    private static final int SMALL_SIZE = 4 * 1024;
+
+    private static final int LIST_OBJECTS = 10000;
+
+    private static final int DELETE_OBJECTS = 1000;
+
+    private static final int RANGE_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> DRAIN_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    /**
+     * 每个请求的额外延迟（毫秒）
+     */
+    @Param({"0", "2"})
+    public long latencyMillis;
+
+    /**
+     * 每个连接的传输速率（MiB/s），0 表示不限速
+     */
+    @Param({"0", "100"})
+    public long bandwidthMiB;
+
+    @Param({"true", "false"})
+    public boolean caches;
+
+    @Param({"16"})
+    public int largeSizeMiB;
+
+    private BenchmarkEnvironment environment;
+
+    private MinioClientUtils minioClientUtils;
+
+    private byte[] small;
+
+    private byte[] large;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        if (!caches) {
+            properties.put("spring.minio.bucket-cache.ttl", 0);
+            properties.put("spring.minio.bucket-cache.negative-ttl", 0);
+            properties.put("spring.minio.stat-cache.ttl", 0);
+            properties.put("spring.minio.coalesce.enabled", false);
+            properties.put("spring.minio.presign.cache-max-entries", 0);
+        }
+        environment = new BenchmarkEnvironment(latencyMillis, bandwidthMiB * 1024 * 1024, properties);
+        minioClientUtils = environment.getMinioClientUtils();
+        small = new byte[SMALL_SIZE];
+        large = new byte[largeSizeMiB * 1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(small);
+        ThreadLocalRandom.current().nextBytes(large);
+        S3StandIn server = environment.getServer();
+        server.putObject(BenchmarkEnvironment.BUCKET, "small", small);
+        server.putObject(BenchmarkEnvironment.BUCKET, "large", large);
+        for (int i = 0; i < LIST_OBJECTS; i++) {
+            server.putObject(BenchmarkEnvironment.BUCKET, String.format("list/%06d", i), small);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    /**
+     * 每次调用前准备 DELETE_OBJECTS 个待删除对象
+     */
+    @State(Scope.Thread)
+    public static class DeleteState {
+
+        private String prefix;
+
+        @Setup(Level.Invocation)
+        public void seed(ObjectBenchmark benchmark) {
+            prefix = "delete/" + Thread.currentThread().getId() + "/";
+            byte[] data = new byte[16];
+            for (int i = 0; i < DELETE_OBJECTS; i++) {
+                benchmark.environment.getServer().putObject(BenchmarkEnvironment.BUCKET, prefix + i, data);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean putSmall() throws Exception {
+        return minioClientUtils.putObject(BenchmarkEnvironment.BUCKET, "put/small", new ByteArrayInputStream(small), "application/octet-stream");
+    }
+
+    @Benchmark
+    public boolean putLarge() throws Exception {
+        return minioClientUtils.putObject(BenchmarkEnvironment.BUCKET, "put/large", new ByteArrayInputStream(large), "application/octet-stream");
+    }
+
+    @Benchmark
+    public long getSmall() throws Exception {
+        return drain(minioClientUtils.getObject(BenchmarkEnvironment.BUCKET, "small"));
+    }
+
+    @Benchmark
+    public long getLarge() throws Exception {
+        return drain(minioClientUtils.getObject(BenchmarkEnvironment.BUCKET, "large"));
+    }
+
+    @Benchmark
+    public long getRange() throws Exception {
+        long offset = ThreadLocalRandom.current().nextLong(large.length - RANGE_SIZE);
+        return drain(minioClientUtils.getObject(BenchmarkEnvironment.BUCKET, "large", offset, (long) RANGE_SIZE));
+    }
+
+    @Benchmark
+    public Object stat() throws Exception {
+        return minioClientUtils.statObject(BenchmarkEnvironment.BUCKET, "small");
+    }
+
+    @Benchmark
+    public int listPage() throws Exception {
+        return minioClientUtils.listObjectsPage(BenchmarkEnvironment.BUCKET, "list/", null, null, 1000).getItems().size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = 1)
+    @Measurement(iterations = 20, batchSize = 1)
+    public long batchDelete(DeleteState state) throws Exception {
+        return minioClientUtils.removeObjectsByPrefix(BenchmarkEnvironment.BUCKET, state.prefix, false, null).getDeleted();
+    }
+
+    @Benchmark
+    public String presign() throws Exception {
+        return minioClientUtils.getPresignedObjectUrl(BenchmarkEnvironment.BUCKET, "small", 3600);
+    }
+
+    @Benchmark
+    public int downloadFile() {
+        DiscardingResponse response = new DiscardingResponse();
+        minioClientUtils.downloadFile(BenchmarkEnvironment.BUCKET, "large", null, null, response);
+        return response.getStatus();
+    }
+
+    private static long drain(InputStream stream) throws IOException {
+        long total = 0;
+        try (InputStream in = stream) {
+            byte[] buffer = DRAIN_BUFFER.get();
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 丢弃响应体，避免 MockHttpServletResponse 缓存内容影响分配统计
+     */
+    private static class DiscardingResponse extends MockHttpServletResponse {
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.light.minio.benchmark;
+
+import com.light.minio.util.MinioClientUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大文件上传吞吐量：uploadObject 单连接上传（mode=single）与并行分片上传（mode=parallel）对比
+ * 限速按连接生效，用于模拟单个 TCP 连接受窗口和往返时间限制、而总带宽更高的链路
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadThroughputBenchmark {
+
+    @Param({"single", "parallel"})
+    public String mode;
+
+    @Param({"64", "256"})
+    public int sizeMiB;
+
+    @Param({"2"})
+    public long latencyMillis;
+
+    /**
+     * 每个连接的传输速率（MiB/s），0 表示不限速
+     */
+    @Param({"50"})
+    public long bandwidthMiB;
+
+    private BenchmarkEnvironment environment;
+
+    private MinioClientUtils minioClientUtils;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.minio.upload.parallel-threshold", "single".equals(mode) ? Long.MAX_VALUE : 0);
+        // 每次上传相同的文件，关闭续传以免复用上一次残留的分片
+        properties.put("spring.minio.upload.resume", false);
+        environment = new BenchmarkEnvironment(latencyMillis, bandwidthMiB * 1024 * 1024, properties);
+        minioClientUtils = environment.getMinioClientUtils();
+        file = File.createTempFile("minio-upload-benchmark", ".bin");
+        file.deleteOnExit();
+        byte[] block = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            for (int i = 0; i < sizeMiB; i++) {
+                ThreadLocalRandom.current().nextBytes(block);
+                out.write(block);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        environment.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public boolean uploadObject() throws Exception {
+        return minioClientUtils.uploadObject(BenchmarkEnvironment.BUCKET, "upload/target", file.getAbsolutePath());
+    }
+}
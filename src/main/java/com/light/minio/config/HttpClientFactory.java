@@ -0,0 +1,133 @@
+package com.light.minio.config;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 spring.minio.transport 配置构建 MinioClient 使用的 OkHttpClient
+ */
+public final class HttpClientFactory {
+
+    private HttpClientFactory() {
+    }
+
+    /**
+     * @param transport    连接配置
+     * @param secure       是否使用 HTTPS
+     * @param interceptors 附加的拦截器（例如限速），按顺序添加，为 null 的忽略
+     */
+    public static OkHttpClient create(MinioConfig.Transport transport, boolean secure, Interceptor... interceptors) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(transport.getMaxIdleConnections(), transport.getKeepAliveDuration(), TimeUnit.MILLISECONDS))
+                .connectTimeout(transport.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(transport.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(transport.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(transport.isRetryOnConnectionFailure())
+                .socketFactory(new TunedSocketFactory(transport));
+        if (transport.isHttp2() && secure) {
+            builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        } else {
+            builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+        if (secure) {
+            configureTls(builder, transport);
+        }
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor != null) {
+                builder.addInterceptor(interceptor);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 使用独立的 SSLContext 以便设置会话缓存，TLS 会话复用可省去重连时的完整握手
+     */
+    private static void configureTls(OkHttpClient.Builder builder, MinioConfig.Transport transport) {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init((KeyStore) null);
+            X509TrustManager trustManager = null;
+            for (TrustManager manager : trustManagerFactory.getTrustManagers()) {
+                if (manager instanceof X509TrustManager) {
+                    trustManager = (X509TrustManager) manager;
+                    break;
+                }
+            }
+            if (trustManager == null) {
+                return;
+            }
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{trustManager}, null);
+            sslContext.getClientSessionContext().setSessionCacheSize(transport.getTlsSessionCacheSize());
+            sslContext.getClientSessionContext().setSessionTimeout(transport.getTlsSessionTimeout());
+            builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to initialize TLS for minio client", e);
+        }
+    }
+
+    /**
+     * 设置 TCP keep-alive / TCP_NODELAY 的套接字工厂
+     */
+    private static class TunedSocketFactory extends SocketFactory {
+
+        private final SocketFactory delegate = SocketFactory.getDefault();
+
+        private final boolean keepAlive;
+
+        private final boolean tcpNoDelay;
+
+        TunedSocketFactory(MinioConfig.Transport transport) {
+            this.keepAlive = transport.isTcpKeepAlive();
+            this.tcpNoDelay = transport.isTcpNoDelay();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        private Socket configure(Socket socket) throws IOException {
+            socket.setKeepAlive(keepAlive);
+            socket.setTcpNoDelay(tcpNoDelay);
+            return socket;
+        }
+    }
+}
@@ -1,13 +1,33 @@
 package com.light.minio.config;
 
+import com.light.minio.util.HedgedReader;
+import com.light.minio.util.MicrometerMinioMetrics;
+import com.light.minio.util.MinioClientPool;
+import com.light.minio.util.MinioInstrumentation;
+import com.light.minio.util.MinioMetrics;
+import com.light.minio.util.MinioTracer;
+import com.light.minio.util.MultipartMinioClient;
+import com.light.minio.util.TransferClass;
+import com.light.minio.util.TransferScheduler;
 import io.minio.MinioClient;
+import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
 import lombok.Getter;
 import lombok.Setter;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -19,20 +39,688 @@ import org.springframework.stereotype.Component;
 @Getter
 @Setter
 public class MinioConfig {
+    private static final String MICROMETER_REGISTRY = "io.micrometer.core.instrument.MeterRegistry";
+
     private String endpoint;
     private int port;
     private String accessKey;
     private String secretKey;
     private Boolean secure;
     private String bucketName;
+    /**
+     * 多节点地址，例如 http://10.0.0.1:9000，配置后替代 endpoint/port/secure，是否使用 HTTPS 由各地址的协议决定
+     */
+    private List<String> endpoints = new ArrayList<>();
+    /**
+     * 多节点负载均衡与健康检查配置
+     */
+    private Balancer balancer = new Balancer();
+    /**
+     * 存储桶存在性缓存配置
+     */
+    private BucketCache bucketCache = new BucketCache();
+    /**
+     * 对象元数据缓存配置
+     */
+    private StatCache statCache = new StatCache();
+    /**
+     * 并行分片上传配置
+     */
+    private Upload upload = new Upload();
+    /**
+     * 并行分段下载配置
+     */
+    private Download download = new Download();
+    /**
+     * 异步接口配置
+     */
+    private Async async = new Async();
+    /**
+     * 对象列表配置
+     */
+    private Listing listing = new Listing();
+    /**
+     * 按前缀批量删除配置
+     */
+    private Delete delete = new Delete();
+    /**
+     * HTTP 传输与连接池配置；MinioClient 的请求都是同步调用，并发数由调用线程数决定（见 async）
+     */
+    private Transport transport = new Transport();
+    /**
+     * 预签名配置
+     */
+    private Presign presign = new Presign();
+    /**
+     * 本地磁盘对象缓存配置
+     */
+    private ObjectCache objectCache = new ObjectCache();
+    /**
+     * 并发请求合并配置
+     */
+    private Coalesce coalesce = new Coalesce();
+    /**
+     * GET 对冲与重试配置
+     */
+    private Read read = new Read();
+    /**
+     * 指标配置
+     */
+    private Metrics metrics = new Metrics();
+    /**
+     * 按内容去重上传配置
+     */
+    private Dedup dedup = new Dedup();
+    /**
+     * 目录同步配置
+     */
+    private Sync sync = new Sync();
+    /**
+     * 服务端复制与合并配置
+     */
+    private Copy copy = new Copy();
+    /**
+     * 传输限速与优先级配置
+     */
+    private Throttle throttle = new Throttle();
 
+    /**
+     * 所有节点共用的 HTTP 客户端；任一节点地址为 https 时启用 TLS 配置，http 节点不受影响
+     */
     @Bean
-    public MinioClient getMinioClient() throws InvalidPortException {
-        MinioClient minioClient = MinioClient.builder().endpoint(endpoint, port, secure)
-                .credentials(accessKey, secretKey)
-                .build();
-        return minioClient;
+    public OkHttpClient minioHttpClient() {
+        boolean tls = false;
+        for (HttpUrl url : nodeUrls()) {
+            tls |= url.isHttps();
+        }
+        return HttpClientFactory.create(transport, tls, transferScheduler().interceptor(), HedgedReader.interceptor());
     }
 
-}
+    @Bean
+    public MinioClient getMinioClient() throws InvalidEndpointException, InvalidPortException {
+        return buildClient(nodeUrls().get(0));
+    }
+
+    /**
+     * 传输带宽调度，速率可通过该 Bean 在运行时调整
+     */
+    @Bean
+    public TransferScheduler transferScheduler() {
+        return new TransferScheduler(throttle);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public MinioClientPool minioClientPool() throws InvalidEndpointException, InvalidPortException {
+        Map<HttpUrl, MinioClient> clients = new LinkedHashMap<>();
+        for (HttpUrl url : nodeUrls()) {
+            clients.put(url, buildClient(url));
+        }
+        return new MinioClientPool(clients, minioHttpClient(), balancer);
+    }
+
+    /**
+     * 指标优先使用容器中的 MinioMetrics，其次在有 Micrometer 时绑定 MeterRegistry；追踪使用容器中的 MinioTracer
+     */
+    @Bean
+    public MinioInstrumentation minioInstrumentation(BeanFactory beanFactory, ObjectProvider<MinioMetrics> minioMetrics,
+                                                     ObjectProvider<MinioTracer> minioTracer) {
+        MinioMetrics instance = null;
+        if (metrics.isEnabled()) {
+            instance = minioMetrics.getIfAvailable();
+            if (instance == null && ClassUtils.isPresent(MICROMETER_REGISTRY, getClass().getClassLoader())) {
+                instance = MicrometerMinioMetrics.create(beanFactory);
+            }
+        }
+        return new MinioInstrumentation(instance != null ? instance : MinioMetrics.NOOP,
+                minioTracer.getIfAvailable(() -> MinioTracer.NOOP));
+    }
+
+    /**
+     * 构建为 MultipartMinioClient，以便并行分片上传直接调用分片上传接口
+     */
+    private MinioClient buildClient(HttpUrl url) throws InvalidEndpointException, InvalidPortException {
+        return new MultipartMinioClient(url, accessKey, secretKey, minioHttpClient());
+    }
+
+    /**
+     * 节点地址：配置了 endpoints 时逐个解析，否则由 endpoint/port/secure 组成
+     */
+    private List<HttpUrl> nodeUrls() {
+        List<HttpUrl> urls = new ArrayList<>();
+        if (endpoints.isEmpty()) {
+            urls.add(nodeUrl(endpoint, port, secure));
+        } else {
+            for (String url : endpoints) {
+                urls.add(nodeUrl(url, 0, null));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 解析节点地址，endpoint 可以是主机名（例如 10.0.0.1、10.0.0.1:9000）或 URL（例如 https://oss.example.com）
+     *
+     * @param endpoint 主机名或 URL
+     * @param port     端口，小于等于 0 时使用 endpoint 中的端口或协议默认端口
+     * @param secure   是否使用 HTTPS，为 null 时 URL 按其协议、主机名按 http
+     * @return HttpUrl
+     */
+    static HttpUrl nodeUrl(String endpoint, int port, Boolean secure) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            throw new IllegalArgumentException("spring.minio.endpoint must not be empty");
+        }
+        String value = endpoint.trim();
+        HttpUrl url = HttpUrl.parse(value);
+        if (url == null) {
+            url = HttpUrl.parse((Boolean.TRUE.equals(secure) ? "https://" : "http://") + value);
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("invalid minio endpoint " + endpoint);
+        }
+        HttpUrl.Builder builder = url.newBuilder();
+        if (secure != null) {
+            builder.scheme(secure ? "https" : "http");
+        }
+        if (port > 0) {
+            builder.port(port);
+        }
+        return builder.build();
+    }
+
+    @Getter
+    @Setter
+    public static class BucketCache {
+        /**
+         * 存储桶存在时的缓存时间（秒），小于等于 0 表示不缓存
+         */
+        private long ttl = 300;
+        /**
+         * 存储桶不存在时的缓存时间（秒），小于等于 0 表示不缓存
+         */
+        private long negativeTtl = 30;
+    }
+
+    @Getter
+    @Setter
+    public static class StatCache {
+        /**
+         * 对象元数据缓存时间（秒），小于等于 0 表示不缓存
+         */
+        private long ttl = 30;
+        /**
+         * 最大缓存条目数
+         */
+        private int maxEntries = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Upload {
+        /**
+         * 文件大小达到该值（字节）时使用并行分片上传
+         */
+        private long parallelThreshold = 64L * 1024 * 1024;
+        /**
+         * 最小分片大小（字节），文件较大时会自动调大以保证分片数不超过 10000
+         */
+        private long partSize = 16L * 1024 * 1024;
+        /**
+         * 单次上传同时上传的分片数
+         */
+        private int concurrency = 4;
+        /**
+         * 上传线程池大小，所有上传共享
+         */
+        private int threads = 16;
+        /**
+         * 合并对象时暂存的临时对象的名称前缀，不能为空；该前缀下的对象不出现在列表、同步和存储桶是否为空的判断中
+         */
+        private String partPrefix = ".parts/";
+        /**
+         * 文件上传中断后是否复用服务端已上传的分片
+         */
+        private boolean resume = true;
+        /**
+         * 续传记录（文件指纹到 uploadId 及其存储桶、对象名）的保存目录
+         */
+        private String stateDirectory = System.getProperty("java.io.tmpdir") + "/minio-upload";
+        /**
+         * 未完成分片上传和合并临时对象的保留时间（秒），启动时在各自的存储桶中放弃本机续传记录中更早的未完成上传（不影响其它客户端的上传）、删除 partPrefix 下更早的临时对象，小于等于 0 表示不清理
+         */
+        private long staleUploadTtl = 7 * 24 * 3600;
+        /**
+         * 未知大小流上传的分片缓冲区总内存上限（字节），所有上传共享
+         */
+        private long bufferPoolMaxBytes = 256L * 1024 * 1024;
+        /**
+         * 分片缓冲区是否使用堆外内存；SDK 的请求体只接受堆内数组，发送前复制到复用的堆内暂存数组，暂存数组另受 bufferPoolMaxBytes 限制
+         */
+        private boolean directBuffers = false;
+        /**
+         * 缓冲区达到上限时的最长等待时间（毫秒），0 表示立即失败
+         */
+        private long bufferWaitTimeout = 30 * 1000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Download {
+        /**
+         * 对象大小达到该值（字节）时使用并行分段下载
+         */
+        private long parallelThreshold = 64L * 1024 * 1024;
+        /**
+         * 分段大小（字节）
+         */
+        private long rangeSize = 16L * 1024 * 1024;
+        /**
+         * 单次下载同时下载的分段数
+         */
+        private int concurrency = 4;
+        /**
+         * 下载线程池大小，所有下载共享
+         */
+        private int threads = 16;
+        /**
+         * 单个分段失败后的重试次数
+         */
+        private int retries = 3;
+        /**
+         * 重试的基础退避时间（毫秒），按重试次数指数增长并加入随机抖动
+         */
+        private long retryBackoff = 200;
+        /**
+         * 中断后再次下载同一对象时是否按清单文件续传
+         */
+        private boolean resume = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+        /**
+         * 执行线程数，小于等于 0 时取各类操作最大并发数之和，使所有获得许可的操作都能立即执行
+         */
+        private int threads = 0;
+        /**
+         * 执行线程池队列长度；threads 小于并发数之和时，超出线程数的操作在此排队，队列满时以 RejectedExecutionException 失败
+         */
+        private int queueCapacity = 1000;
+        /**
+         * 是否使用虚拟线程（JDK 21 及以上生效，否则使用线程池）
+         */
+        private boolean virtualThreads = false;
+        /**
+         * getObject 最大并发数
+         */
+        private int getConcurrency = 32;
+        /**
+         * putObject/uploadObject 最大并发数
+         */
+        private int putConcurrency = 16;
+        /**
+         * statObject 最大并发数
+         */
+        private int statConcurrency = 64;
+        /**
+         * removeObject 最大并发数
+         */
+        private int removeConcurrency = 16;
+        /**
+         * 预签名最大并发数
+         */
+        private int presignConcurrency = 64;
+        /**
+         * 每类操作超过并发数后的最大排队数，超过后直接失败
+         */
+        private int maxPending = 10000;
+
+        /**
+         * 各类操作最大并发数之和，即同时提交到执行线程池的最大任务数
+         */
+        public int totalConcurrency() {
+            return Math.max(getConcurrency, 1) + Math.max(putConcurrency, 1) + Math.max(statConcurrency, 1)
+                    + Math.max(removeConcurrency, 1) + Math.max(presignConcurrency, 1);
+        }
+    }
 
+    @Getter
+    @Setter
+    public static class Listing {
+        /**
+         * 每次请求列出的对象数（max-keys），最大 1000
+         */
+        private int pageSize = 1000;
+        /**
+         * 并行列表的线程数
+         */
+        private int parallelThreads = 8;
+        /**
+         * 并行列表缓存的最大对象数
+         */
+        private int queueCapacity = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Delete {
+        /**
+         * 每批删除的对象数，最大 1000
+         */
+        private int batchSize = 1000;
+        /**
+         * 单次按前缀删除同时进行的批数
+         */
+        private int concurrency = 4;
+        /**
+         * 删除线程池大小，所有删除共享
+         */
+        private int threads = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class Transport {
+        /**
+         * 连接池最大空闲连接数
+         */
+        private int maxIdleConnections = 64;
+        /**
+         * 空闲连接保留时间（毫秒），超时后被回收
+         */
+        private long keepAliveDuration = 5 * 60 * 1000L;
+        /**
+         * 连接超时（毫秒）
+         */
+        private long connectTimeout = 10 * 1000L;
+        /**
+         * 读超时（毫秒）
+         */
+        private long readTimeout = 5 * 60 * 1000L;
+        /**
+         * 写超时（毫秒）
+         */
+        private long writeTimeout = 5 * 60 * 1000L;
+        /**
+         * 连接失败时是否自动重试
+         */
+        private boolean retryOnConnectionFailure = true;
+        /**
+         * 是否启用 HTTP/2（仅对 https 节点生效）
+         */
+        private boolean http2 = false;
+        /**
+         * 是否开启 TCP keep-alive
+         */
+        private boolean tcpKeepAlive = true;
+        /**
+         * 是否开启 TCP_NODELAY
+         */
+        private boolean tcpNoDelay = true;
+        /**
+         * TLS 会话缓存数量，0 表示不限制
+         */
+        private int tlsSessionCacheSize = 0;
+        /**
+         * TLS 会话缓存时间（秒）
+         */
+        private int tlsSessionTimeout = 24 * 3600;
+    }
+
+    @Getter
+    @Setter
+    public static class Balancer {
+        /**
+         * 节点选择策略
+         */
+        private Strategy strategy = Strategy.LEAST_OUTSTANDING;
+        /**
+         * 健康检查间隔（毫秒），小于等于 0 表示不检查，此时节点也不会被移出轮询
+         */
+        private long healthCheckInterval = 5000;
+        /**
+         * 健康检查超时（毫秒）
+         */
+        private long healthCheckTimeout = 2000;
+        /**
+         * 连续失败多少次后移出轮询
+         */
+        private int unhealthyThreshold = 3;
+        /**
+         * 连续成功多少次后加回轮询
+         */
+        private int healthyThreshold = 2;
+
+        public enum Strategy {
+            /**
+             * 轮询
+             */
+            ROUND_ROBIN,
+            /**
+             * 最少未完成请求，GET 的响应体在关闭前仍计为未完成
+             */
+            LEAST_OUTSTANDING
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Presign {
+        /**
+         * 预签名 URL 使用的地址，例如 https://oss.example.com，为空时使用第一个节点地址
+         */
+        private String endpoint;
+        /**
+         * 签名区域，需与服务端区域一致
+         */
+        private String region = "us-east-1";
+        /**
+         * URL 缓存的最大条目数，0 表示不缓存
+         */
+        private int cacheMaxEntries = 10000;
+        /**
+         * 缓存的 URL 经过有效期的该比例后重新签名，取值 0~1
+         */
+        private double refreshFraction = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class ObjectCache {
+        /**
+         * 是否启用本地磁盘对象缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 缓存目录，启动时删除其中上次运行留下的缓存文件，其它文件和子目录不受影响
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/minio-object-cache";
+        /**
+         * 缓存总大小上限（字节），超出后淘汰最久未使用的对象
+         */
+        private long maxBytes = 1024L * 1024 * 1024;
+        /**
+         * 可缓存的单个对象大小上限（字节），更大的对象直接从 MinIO 读取
+         */
+        private long maxObjectSize = 64L * 1024 * 1024;
+        /**
+         * 不超过该大小（字节）的对象以内存映射方式读取
+         */
+        private long mmapThreshold = 4L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Coalesce {
+        /**
+         * 是否合并相同存储桶/对象的并发 bucketExists、statObject 和 getObject 请求
+         */
+        private boolean enabled = true;
+        /**
+         * 不超过该大小（字节）的对象，并发 getObject 共享一次下载的内存缓冲区；更大的对象各自流式读取
+         */
+        private long sharedBufferThreshold = 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Read {
+        /**
+         * 是否启用对冲请求
+         */
+        private boolean hedgeEnabled = true;
+        /**
+         * 对冲请求线程池大小，原请求在调用线程上执行；线程都在忙时不发出对冲请求
+         */
+        private int hedgeThreads = 16;
+        /**
+         * 首字节耗时超过该分位（0~1）仍未返回时发出对冲请求
+         */
+        private double hedgePercentile = 0.95;
+        /**
+         * 对冲等待时间下限（毫秒）
+         */
+        private long hedgeMinDelay = 10;
+        /**
+         * 对冲等待时间上限（毫秒），样本不足时使用该值
+         */
+        private long hedgeMaxDelay = 1000;
+        /**
+         * 每个操作至少记录多少次耗时后才按分位计算对冲等待时间
+         */
+        private int minSamples = 50;
+        /**
+         * 每个操作保留最近多少次耗时
+         */
+        private int windowSize = 1024;
+        /**
+         * 最多尝试次数（含第一次）
+         */
+        private int maxAttempts = 3;
+        /**
+         * 重试间隔基数（毫秒），按 2 的幂次增长并加入随机抖动
+         */
+        private long retryBackoff = 50;
+        /**
+         * 重试间隔上限（毫秒）
+         */
+        private long maxRetryBackoff = 2000;
+        /**
+         * 每次成功的请求增加的重试预算，例如 0.1 表示重试和对冲请求最多约占正常请求的 10%
+         */
+        private double retryBudgetRatio = 0.1;
+        /**
+         * 重试预算上限，也是初始预算
+         */
+        private double retryBudgetMax = 20;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+        /**
+         * 是否记录指标，关闭后只保留追踪
+         */
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+        /**
+         * 是否按内容摘要去重：相同内容已上传过时通过服务端复制生成对象
+         */
+        private boolean enabled = false;
+        /**
+         * 摘要算法
+         */
+        private String algorithm = "SHA-256";
+        /**
+         * 本地摘要索引的最大条目数，超出后淘汰最久未访问的条目
+         */
+        private int maxEntries = 100000;
+        /**
+         * 参与去重的最小对象大小（字节），更小的对象直接上传比校验加复制更快
+         */
+        private long minSize = 64 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Sync {
+        /**
+         * 单次同步同时传输的文件数
+         */
+        private int concurrency = 8;
+        /**
+         * 同步线程池大小，所有同步共享
+         */
+        private int threads = 16;
+        /**
+         * 同步清单的保存目录，清单丢失时下次同步会与服务端逐个比较
+         */
+        private String manifestDirectory = System.getProperty("user.home") + "/.minio-sync";
+    }
+
+    @Getter
+    @Setter
+    public static class Copy {
+        /**
+         * 批量复制、合并时同时执行的请求数
+         */
+        private int concurrency = 8;
+        /**
+         * 复制线程池大小，所有复制共享
+         */
+        private int threads = 16;
+        /**
+         * 单次合并的最大分片数，超过时先分组合并为中间对象，取值 2 到 10000，启动时校验
+         */
+        private int maxComposeSources = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Throttle {
+        /**
+         * 是否启用限速和优先级调度
+         */
+        private boolean enabled = false;
+        /**
+         * 所有传输合计的速率（字节/秒），0 表示不限速
+         */
+        private long globalRate = 0;
+        /**
+         * INTERACTIVE 优先级的速率（字节/秒），0 表示不限速
+         */
+        private long interactiveRate = 0;
+        /**
+         * NORMAL 优先级的速率（字节/秒），0 表示不限速
+         */
+        private long normalRate = 0;
+        /**
+         * BULK 优先级的速率（字节/秒），0 表示不限速
+         */
+        private long bulkRate = 0;
+        /**
+         * 令牌桶容量，以多少毫秒的速率计，空闲后允许的突发量
+         */
+        private long burst = 200;
+        /**
+         * 每次取令牌的字节数，越小同优先级的传输交替越细
+         */
+        private int chunkSize = 64 * 1024;
+
+        public long rate(TransferClass transferClass) {
+            switch (transferClass) {
+                case INTERACTIVE:
+                    return interactiveRate;
+                case BULK:
+                    return bulkRate;
+                default:
+                    return normalRate;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,269 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.ObjectStat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MinIO 客户端异步工具类
+ * 基于 MinioClientUtils，返回 CompletableFuture；各类操作分别限制并发数，排队过多时直接失败（RejectedExecutionException）
+ */
+@Component
+@Slf4j
+public class AsyncMinioClientUtils {
+
+    @Autowired
+    private MinioClientUtils minioClientUtils;
+
+    @Autowired
+    private MinioConfig minioConfig;
+
+    private ExecutorService executor;
+
+    private OperationLimiter getLimiter;
+
+    private OperationLimiter putLimiter;
+
+    private OperationLimiter statLimiter;
+
+    private OperationLimiter removeLimiter;
+
+    private OperationLimiter presignLimiter;
+
+    @PostConstruct
+    public void init() {
+        MinioConfig.Async async = minioConfig.getAsync();
+        executor = createExecutor(async);
+        getLimiter = new OperationLimiter("get", executor, async.getGetConcurrency(), async.getMaxPending());
+        putLimiter = new OperationLimiter("put", executor, async.getPutConcurrency(), async.getMaxPending());
+        statLimiter = new OperationLimiter("stat", executor, async.getStatConcurrency(), async.getMaxPending());
+        removeLimiter = new OperationLimiter("remove", executor, async.getRemoveConcurrency(), async.getMaxPending());
+        presignLimiter = new OperationLimiter("presign", executor, async.getPresignConcurrency(), async.getMaxPending());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 以流的形式获取一个文件对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @return CompletableFuture<InputStream>
+     */
+    public CompletableFuture<InputStream> getObject(String bucketName, String objectName) {
+        return getLimiter.submit(() -> minioClientUtils.getObject(bucketName, objectName));
+    }
+
+    /**
+     * 以流的形式获取一个文件对象（断点下载）
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param offset     起始字节的位置
+     * @param length     要读取的长度 (可选，如果无值则代表读到文件结尾)
+     * @return CompletableFuture<InputStream>
+     */
+    public CompletableFuture<InputStream> getObject(String bucketName, String objectName, long offset, Long length) {
+        return getLimiter.submit(() -> minioClientUtils.getObject(bucketName, objectName, offset, length));
+    }
+
+    /**
+     * 通过InputStream上传对象
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  存储桶里的对象名称
+     * @param inputStream 要上传的流
+     * @param contentType 上传的文件类型 例如 video/mp4  image/jpg
+     * @return CompletableFuture<Boolean>
+     */
+    public CompletableFuture<Boolean> putObject(String bucketName, String objectName, InputStream inputStream, String contentType) {
+        return putLimiter.submit(() -> minioClientUtils.putObject(bucketName, objectName, inputStream, contentType));
+    }
+
+    /**
+     * 通过文件上传到对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param fileName   File name
+     * @return CompletableFuture<Boolean>
+     */
+    public CompletableFuture<Boolean> uploadObject(String bucketName, String objectName, String fileName) {
+        return putLimiter.submit(() -> minioClientUtils.uploadObject(bucketName, objectName, fileName));
+    }
+
+    /**
+     * 获取对象的元数据
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @return CompletableFuture<ObjectStat>，对象不存在时结果为 null
+     */
+    public CompletableFuture<ObjectStat> statObject(String bucketName, String objectName) {
+        return statLimiter.submit(() -> minioClientUtils.statObject(bucketName, objectName));
+    }
+
+    /**
+     * 批量获取对象的元数据，同一时刻最多 statConcurrency 个请求在途，每完成一个再提交下一个，
+     * 不会因为批量过大超出 stat 的排队上限
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 存储桶里的对象名称
+     * @return 对象名称到元数据的映射，保持 objectNames 的顺序，不存在的对象值为 null；任一对象失败时整体失败
+     */
+    public CompletableFuture<Map<String, ObjectStat>> statAll(String bucketName, Collection<String> objectNames) {
+        StatBatch batch = new StatBatch(bucketName, new ArrayList<>(objectNames));
+        if (batch.names.isEmpty()) {
+            batch.result.complete(new LinkedHashMap<>());
+            return batch.result;
+        }
+        int window = Math.min(Math.max(minioConfig.getAsync().getStatConcurrency(), 1), batch.names.size());
+        for (int i = 0; i < window; i++) {
+            batch.submitNext();
+        }
+        return batch.result;
+    }
+
+    /**
+     * 删除一个对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @return CompletableFuture<Boolean>
+     */
+    public CompletableFuture<Boolean> removeObject(String bucketName, String objectName) {
+        return removeLimiter.submit(() -> minioClientUtils.removeObject(bucketName, objectName));
+    }
+
+    /**
+     * 生成一个给HTTP GET请求用的presigned URL
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param expires    失效时间（以秒为单位），默认是7天，不得大于七天
+     * @return CompletableFuture<String>
+     */
+    public CompletableFuture<String> getPresignedObjectUrl(String bucketName, String objectName, Integer expires) {
+        return presignLimiter.submit(() -> minioClientUtils.getPresignedObjectUrl(bucketName, objectName, expires));
+    }
+
+    /**
+     * 生成一个给HTTP PUT请求用的presigned URL
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param expires    失效时间
+     * @param timeUnit   时间单位
+     * @return CompletableFuture<String>
+     */
+    public CompletableFuture<String> presignedPutObject(String bucketName, String objectName, Integer expires, TimeUnit timeUnit) {
+        return presignLimiter.submit(() -> minioClientUtils.presignedPutObject(bucketName, objectName, expires, timeUnit));
+    }
+
+    public OperationLimiter getGetLimiter() {
+        return getLimiter;
+    }
+
+    public OperationLimiter getPutLimiter() {
+        return putLimiter;
+    }
+
+    public OperationLimiter getStatLimiter() {
+        return statLimiter;
+    }
+
+    public OperationLimiter getRemoveLimiter() {
+        return removeLimiter;
+    }
+
+    public OperationLimiter getPresignLimiter() {
+        return presignLimiter;
+    }
+
+    /**
+     * statAll 的一次批量：固定窗口内的请求完成一个提交下一个
+     */
+    private final class StatBatch {
+
+        private final String bucketName;
+
+        private final List<String> names;
+
+        private final ObjectStat[] stats;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicInteger remaining;
+
+        private final CompletableFuture<Map<String, ObjectStat>> result = new CompletableFuture<>();
+
+        private StatBatch(String bucketName, List<String> names) {
+            this.bucketName = bucketName;
+            this.names = names;
+            this.stats = new ObjectStat[names.size()];
+            this.remaining = new AtomicInteger(names.size());
+        }
+
+        private void submitNext() {
+            int index = next.getAndIncrement();
+            if (index >= names.size() || result.isDone()) {
+                return;
+            }
+            statObject(bucketName, names.get(index)).whenComplete((stat, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                    return;
+                }
+                stats[index] = stat;
+                if (remaining.decrementAndGet() == 0) {
+                    Map<String, ObjectStat> map = new LinkedHashMap<>(names.size() * 2);
+                    for (int i = 0; i < names.size(); i++) {
+                        map.put(names.get(i), stats[i]);
+                    }
+                    result.complete(map);
+                } else {
+                    submitNext();
+                }
+            });
+        }
+    }
+
+    /**
+     * 创建执行线程池，配置使用虚拟线程且运行在 JDK 21 及以上时使用虚拟线程；
+     * 线程数默认等于各类操作最大并发数之和，各 OperationLimiter 放行的任务不会在线程池中排队
+     */
+    private static ExecutorService createExecutor(MinioConfig.Async async) {
+        if (async.isVirtualThreads()) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("virtual threads are not available on this JDK, fall back to a bounded thread pool");
+            }
+        }
+        int concurrency = async.totalConcurrency();
+        int threads = async.getThreads() > 0 ? async.getThreads() : concurrency;
+        if (threads < concurrency) {
+            log.warn("spring.minio.async.threads {} is less than the total operation concurrency {}, admitted operations may queue or be rejected", threads, concurrency);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(async.getQueueCapacity(), 1)), new NamedThreadFactory("minio-async"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,101 @@
+package com.light.minio.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 存储桶存在性缓存
+ * 存在与不存在分别使用不同的缓存时间，ttl 小于等于 0 时不缓存
+ */
+public class BucketExistsCache {
+
+    private final long ttlNanos;
+
+    private final long negativeTtlNanos;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param ttl         存储桶存在时的缓存时间（秒）
+     * @param negativeTtl 存储桶不存在时的缓存时间（秒）
+     */
+    public BucketExistsCache(long ttl, long negativeTtl) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(ttl, 0));
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(negativeTtl, 0));
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param bucketName 存储桶名称
+     * @return 未命中或已过期时返回 null
+     */
+    public Boolean get(String bucketName) {
+        Entry entry = entries.get(bucketName);
+        if (entry != null) {
+            if (System.nanoTime() - entry.expireAt < 0) {
+                hits.incrementAndGet();
+                return entry.exists;
+            }
+            entries.remove(bucketName, entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param bucketName 存储桶名称
+     * @param exists     是否存在
+     */
+    public void put(String bucketName, boolean exists) {
+        long ttl = exists ? ttlNanos : negativeTtlNanos;
+        if (ttl <= 0) {
+            entries.remove(bucketName);
+            return;
+        }
+        entries.put(bucketName, new Entry(exists, System.nanoTime() + ttl));
+    }
+
+    /**
+     * 使指定存储桶的缓存失效
+     *
+     * @param bucketName 存储桶名称
+     */
+    public void invalidate(String bucketName) {
+        entries.remove(bucketName);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final boolean exists;
+        private final long expireAt;
+
+        private Entry(boolean exists, long expireAt) {
+            this.exists = exists;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.*;
+import io.minio.errors.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按内容去重的上传
+ * 本地维护 内容摘要 -> 已上传对象 的索引（超过 maxEntries 时淘汰最久未访问的条目），
+ * 上传前命中索引且源对象的 ETag 和大小未变时，通过服务端复制生成目标对象，不再传输数据。
+ */
+public class ContentDedup {
+
+    /**
+     * 单次复制的最大源对象大小
+     */
+    private static final long MAX_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> HASH_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.Dedup dedup;
+
+    private final LinkedHashMap<String, Source> index;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong stale = new AtomicLong();
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public ContentDedup(MinioClientPool minioClientPool, MinioConfig.Dedup dedup) {
+        this.minioClientPool = minioClientPool;
+        this.dedup = dedup;
+        final int maxEntries = Math.max(dedup.getMaxEntries(), 0);
+        this.index = new LinkedHashMap<String, Source>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 该大小的内容是否参与去重
+     *
+     * @param size 内容大小
+     * @return boolean
+     */
+    public boolean accepts(long size) {
+        return dedup.isEnabled() && size >= dedup.getMinSize() && size <= MAX_COPY_SIZE;
+    }
+
+    /**
+     * 计算流的内容摘要，读到流末尾但不关闭流
+     *
+     * @param inputStream 输入流
+     * @return 摘要，作为索引的键
+     */
+    public String hash(InputStream inputStream) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = HASH_BUFFER.get();
+        long size = 0;
+        int n;
+        while ((n = inputStream.read(buffer)) > 0) {
+            digest.update(buffer, 0, n);
+            size += n;
+        }
+        return key(digest, size);
+    }
+
+    /**
+     * @return 新的摘要对象，可配合 DigestInputStream 边上传边计算
+     */
+    public MessageDigest newDigest() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(dedup.getAlgorithm());
+    }
+
+    /**
+     * @param digest 已读入全部内容的摘要对象
+     * @param size   内容大小
+     * @return 摘要，作为索引的键
+     */
+    public String key(MessageDigest digest, long size) {
+        byte[] bytes = digest.digest();
+        StringBuilder key = new StringBuilder(bytes.length * 2 + 24);
+        for (byte b : bytes) {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.append(':').append(size).toString();
+    }
+
+    /**
+     * 索引中有相同内容的对象时，通过服务端复制生成目标对象
+     *
+     * @param hash        内容摘要
+     * @param size        内容大小
+     * @param bucketName  目标存储桶名称
+     * @param objectName  目标对象名称
+     * @param contentType 文件类型，可为 null（沿用源对象的元数据）
+     * @return 已复制返回 true，未命中或源对象已变化返回 false，调用方应正常上传
+     */
+    public boolean copyIfPresent(String hash, long size, String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Source source;
+        synchronized (index) {
+            source = index.get(hash);
+        }
+        if (source == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        if (source.bucketName.equals(bucketName) && source.objectName.equals(objectName)) {
+            // 相同内容覆盖自身，只需确认对象仍在
+            if (verify(hash, source)) {
+                hits.incrementAndGet();
+                bytesSaved.addAndGet(size);
+                return true;
+            }
+            misses.incrementAndGet();
+            return false;
+        }
+        if (!verify(hash, source)) {
+            misses.incrementAndGet();
+            return false;
+        }
+        CopyObjectArgs.Builder builder = CopyObjectArgs.builder().bucket(bucketName).object(objectName)
+                .source(CopySource.builder().bucket(source.bucketName).object(source.objectName).matchETag(source.etag).build());
+        if (contentType != null) {
+            builder.headers(Collections.singletonMap("Content-Type", contentType)).metadataDirective(Directive.REPLACE);
+        }
+        CopyObjectArgs args = builder.build();
+        try {
+            minioClientPool.execute(client -> client.copyObject(args));
+        } catch (ErrorResponseException e) {
+            // 校验后源对象被删除或覆盖
+            if (MinioExceptions.isNotFound(e) || MinioExceptions.isPreconditionFailed(e)) {
+                MinioInstrumentation.handled(t -> MinioExceptions.isNotFound(t) || MinioExceptions.isPreconditionFailed(t));
+                evict(hash, source);
+                misses.incrementAndGet();
+                return false;
+            }
+            throw e;
+        }
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(size);
+        return true;
+    }
+
+    /**
+     * 记录已上传的对象
+     *
+     * @param hash       内容摘要
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param etag       上传后的 ETag
+     */
+    public void record(String hash, String bucketName, String objectName, String etag) {
+        if (etag == null) {
+            return;
+        }
+        Source source = new Source(bucketName, objectName, unquote(etag));
+        synchronized (index) {
+            index.put(hash, source);
+        }
+    }
+
+    public void clear() {
+        synchronized (index) {
+            index.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 索引命中但源对象已删除或被覆盖的次数
+     */
+    public long getStale() {
+        return stale.get();
+    }
+
+    /**
+     * 因去重而未上传的字节数
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    private boolean verify(String hash, Source source) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        ObjectStat stat;
+        try {
+            stat = minioClientPool.execute(client -> client.statObject(StatObjectArgs.builder()
+                    .bucket(source.bucketName).object(source.objectName).build()));
+        } catch (ErrorResponseException e) {
+            if (MinioExceptions.isNotFound(e)) {
+                evict(hash, source);
+                return false;
+            }
+            throw e;
+        }
+        long size = Long.parseLong(hash.substring(hash.lastIndexOf(':') + 1));
+        if (stat.length() != size || !source.etag.equals(unquote(stat.etag()))) {
+            evict(hash, source);
+            return false;
+        }
+        return true;
+    }
+
+    private void evict(String hash, Source source) {
+        stale.incrementAndGet();
+        synchronized (index) {
+            index.remove(hash, source);
+        }
+    }
+
+    private static String unquote(String etag) {
+        return etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"") ? etag.substring(1, etag.length() - 1) : etag;
+    }
+
+    private static final class Source {
+        private final String bucketName;
+        private final String objectName;
+        private final String etag;
+
+        private Source(String bucketName, String objectName, String etag) {
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.etag = etag;
+        }
+    }
+}
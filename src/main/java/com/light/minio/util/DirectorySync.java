@@ -0,0 +1,349 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.ObjectStat;
+import io.minio.errors.*;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 本地目录与存储桶前缀之间的增量同步
+ * 每个 方向/存储桶/前缀/目录 组合在本地保存一份清单，记录上次同步时的文件大小、修改时间和 ETag：
+ * 上传时大小和修改时间都未变化的文件不发起任何请求；下载时按一次列表结果的 ETag 和大小判断对象是否变化。
+ * 没有清单（首次同步）时，与服务端对象的大小和 ETag（单次上传的对象即内容 MD5）比较，已一致的文件不再传输。
+ */
+@Slf4j
+public class DirectorySync {
+
+    private static final String SEPARATOR = "/";
+
+    /**
+     * 批量删除接口单次最多 1000 个对象
+     */
+    private static final int MAX_DELETE_BATCH = 1000;
+
+    private static final String DOWNLOAD_SUFFIX = ".sync";
+
+    private final MinioClientUtils minioClientUtils;
+
+    private final ObjectListing objectListing;
+
+    private final MinioConfig.Sync sync;
+
+    private final int deleteBatchSize;
+
+    private final ExecutorService executor;
+
+    public DirectorySync(MinioClientUtils minioClientUtils, ObjectListing objectListing, MinioConfig.Sync sync, MinioConfig.Delete delete) {
+        this.minioClientUtils = minioClientUtils;
+        this.objectListing = objectListing;
+        this.sync = sync;
+        this.deleteBatchSize = Math.min(Math.max(delete.getBatchSize(), 1), MAX_DELETE_BATCH);
+        this.executor = Executors.newFixedThreadPool(Math.max(sync.getThreads(), 1), new NamedThreadFactory("minio-sync"));
+    }
+
+    /**
+     * 把本地目录同步到存储桶前缀下，只上传新增或变化的文件
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delete     是否删除本地已不存在的文件对应的对象
+     * @return SyncResult
+     */
+    public SyncResult upload(String localDir, String bucketName, String prefix, boolean delete) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Path root = Paths.get(localDir).toAbsolutePath().normalize();
+        String base = normalizePrefix(prefix);
+        SyncManifest manifest = SyncManifest.load(manifestFile("upload", bucketName, base, root));
+        // 首次同步时列出服务端对象，用于跳过内容已一致的文件和删除多余的对象
+        Map<String, Item> remote = manifest.existed() ? null : listRemote(bucketName, base);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        Set<String> local = new HashSet<>();
+        AtomicLong transferred = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        TaskBatch batch = new TaskBatch(executor, sync.getConcurrency());
+        try {
+            for (Path file : files) {
+                String name = relativeName(root, file);
+                local.add(name);
+                long size = Files.size(file);
+                long lastModified = Files.getLastModifiedTime(file).toMillis();
+                SyncManifest.Entry entry = manifest.get(name);
+                if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                Item item = remote != null ? remote.get(name) : null;
+                String objectName = base + name;
+                if (!batch.submit(() -> {
+                    if (item != null && item.size() == size && contentMatches(file, item.etag())) {
+                        manifest.put(name, size, lastModified, unquote(item.etag()));
+                        skipped.incrementAndGet();
+                        return null;
+                    }
+                    if (!minioClientUtils.uploadObject(bucketName, objectName, file.toString())) {
+                        throw new IOException("upload " + file + " to " + bucketName + "/" + objectName + " failed");
+                    }
+                    ObjectStat stat = minioClientUtils.statObject(bucketName, objectName);
+                    manifest.put(name, size, lastModified, stat != null ? unquote(stat.etag()) : null);
+                    transferred.incrementAndGet();
+                    bytes.addAndGet(size);
+                    return null;
+                })) {
+                    break;
+                }
+            }
+            batch.await();
+            long deleted = 0;
+            if (delete) {
+                Set<String> removed = new TreeSet<>(manifest.names());
+                if (remote != null) {
+                    removed.addAll(remote.keySet());
+                }
+                removed.removeAll(local);
+                deleted = deleteObjects(bucketName, base, removed, manifest);
+            }
+            return new SyncResult(files.size(), transferred.get(), skipped.get(), deleted, bytes.get());
+        } finally {
+            // 失败时也保存已完成的部分，再次同步时不会重复上传
+            manifest.save();
+        }
+    }
+
+    /**
+     * 把存储桶前缀下的对象同步到本地目录，只下载新增或变化的对象
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param localDir   本地目录
+     * @param delete     是否删除服务端已不存在的对象对应的本地文件
+     * @return SyncResult
+     */
+    public SyncResult download(String bucketName, String prefix, String localDir, boolean delete) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Path root = Paths.get(localDir).toAbsolutePath().normalize();
+        String base = normalizePrefix(prefix);
+        Files.createDirectories(root);
+        SyncManifest manifest = SyncManifest.load(manifestFile("download", bucketName, base, root));
+        Set<String> remote = new HashSet<>();
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong transferred = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        TaskBatch batch = new TaskBatch(executor, sync.getConcurrency());
+        try {
+            Iterator<Item> iterator = objectListing.iterator(bucketName, base, null, null);
+            try {
+                while (iterator.hasNext()) {
+                    Item item = iterator.next();
+                    String objectName = item.objectName();
+                    if (objectName.endsWith(SEPARATOR)) {
+                        continue;
+                    }
+                    String name = objectName.substring(base.length());
+                    Path target = root.resolve(name).normalize();
+                    if (!target.startsWith(root) || target.equals(root)) {
+                        log.warn("skip object {} outside of {}", objectName, root);
+                        continue;
+                    }
+                    scanned.incrementAndGet();
+                    remote.add(name);
+                    String etag = unquote(item.etag());
+                    long size = item.size();
+                    if (unchanged(manifest.get(name), target, etag, size)) {
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    if (!batch.submit(() -> {
+                        if (manifest.get(name) == null && Files.isRegularFile(target) && Files.size(target) == size
+                                && contentMatches(target, etag)) {
+                            manifest.put(name, size, Files.getLastModifiedTime(target).toMillis(), etag);
+                            skipped.incrementAndGet();
+                            return null;
+                        }
+                        fetch(bucketName, objectName, size, target);
+                        manifest.put(name, size, Files.getLastModifiedTime(target).toMillis(), etag);
+                        transferred.incrementAndGet();
+                        bytes.addAndGet(size);
+                        return null;
+                    })) {
+                        break;
+                    }
+                }
+            } catch (MinioRuntimeException e) {
+                batch.await();
+                MinioExceptions.rethrow(e.getCause());
+            }
+            batch.await();
+            long deleted = 0;
+            if (delete) {
+                deleted = deleteFiles(root, remote, manifest);
+            }
+            return new SyncResult(scanned.get(), transferred.get(), skipped.get(), deleted, bytes.get());
+        } finally {
+            manifest.save();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Map<String, Item> listRemote(String bucketName, String base) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Map<String, Item> items = new HashMap<>();
+        try {
+            Iterator<Item> iterator = objectListing.iterator(bucketName, base, null, null);
+            while (iterator.hasNext()) {
+                Item item = iterator.next();
+                if (!item.objectName().endsWith(SEPARATOR)) {
+                    items.put(item.objectName().substring(base.length()), item);
+                }
+            }
+        } catch (MinioRuntimeException e) {
+            MinioExceptions.rethrow(e.getCause());
+        }
+        return items;
+    }
+
+    private long deleteObjects(String bucketName, String base, Set<String> names, SyncManifest manifest) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(deleteBatchSize);
+        Iterator<String> iterator = names.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == deleteBatchSize || !iterator.hasNext()) {
+                List<DeleteObject> objects = new ArrayList<>(batch.size());
+                for (String name : batch) {
+                    objects.add(new DeleteObject(base + name));
+                }
+                Set<String> failed = new HashSet<>(minioClientUtils.removeObjects(bucketName, objects));
+                for (String name : batch) {
+                    if (failed.contains(base + name)) {
+                        log.warn("remove {}/{} failed", bucketName, base + name);
+                    } else {
+                        manifest.remove(name);
+                        deleted++;
+                    }
+                }
+                batch.clear();
+            }
+        }
+        return deleted;
+    }
+
+    private long deleteFiles(Path root, Set<String> remote, SyncManifest manifest) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        long deleted = 0;
+        for (Path file : files) {
+            String name = relativeName(root, file);
+            if (!remote.contains(name)) {
+                Files.deleteIfExists(file);
+                manifest.remove(name);
+                deleted++;
+            }
+        }
+        for (String name : new ArrayList<>(manifest.names())) {
+            if (!remote.contains(name)) {
+                manifest.remove(name);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 下载到临时文件后替换目标文件，中断时不会留下不完整的目标文件
+     */
+    private void fetch(String bucketName, String objectName, long size, Path target) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + DOWNLOAD_SUFFIX);
+        Files.deleteIfExists(temp);
+        if (size == 0) {
+            Files.createFile(temp);
+        } else if (!minioClientUtils.downloadObject(bucketName, objectName, temp.toString())) {
+            throw new IOException("download " + bucketName + "/" + objectName + " failed");
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean unchanged(SyncManifest.Entry entry, Path target, String etag, long size) throws IOException {
+        return entry != null && entry.size == size && entry.etag.equals(etag)
+                && Files.isRegularFile(target) && Files.size(target) == size
+                && Files.getLastModifiedTime(target).toMillis() == entry.lastModified;
+    }
+
+    /**
+     * 本地文件内容是否与 ETag 一致；分片上传的对象 ETag 不是内容 MD5，视为不一致
+     */
+    private static boolean contentMatches(Path file, String etag) throws IOException, NoSuchAlgorithmException {
+        String expected = unquote(etag);
+        if (expected.length() != 32 || expected.indexOf('-') >= 0) {
+            return false;
+        }
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md5.update(buffer, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(32);
+        for (byte b : md5.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString().equalsIgnoreCase(expected);
+    }
+
+    private Path manifestFile(String direction, String bucketName, String base, Path root) throws NoSuchAlgorithmException {
+        String source = direction + "\n" + bucketName + "\n" + base + "\n" + root;
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            hex.append(String.format("%02x", digest[i]));
+        }
+        return Paths.get(sync.getManifestDirectory(), hex + ".properties");
+    }
+
+    private static String relativeName(Path root, Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String normalizePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return "";
+        }
+        return prefix.endsWith(SEPARATOR) ? prefix : prefix + SEPARATOR;
+    }
+
+    private static String unquote(String etag) {
+        if (etag == null) {
+            return "";
+        }
+        return etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"") ? etag.substring(1, etag.length() - 1) : etag;
+    }
+}
@@ -0,0 +1,351 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.GetObjectArgs;
+import io.minio.ObjectStat;
+import io.minio.errors.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 本地磁盘读穿缓存
+ * 对象下载到本地目录，按总大小做 LRU 淘汰；命中时与 ObjectStat 的 ETag 比对，不一致时以 If-None-Match 条件读取重新校验。
+ * 小对象以内存映射方式读取；同一对象的并发未命中只下载一次。启动时只删除缓存目录中按缓存命名规则生成的文件。
+ * 缓存文件可能在查到条目之后、打开之前被淘汰，此时重新下载，仍失败则直接从 MinIO 读取。
+ */
+@Slf4j
+public class DiskObjectCache {
+
+    /**
+     * 缓存文件名：对象键摘要-UUID；下载中的临时文件名：UUID.tmp
+     */
+    private static final Pattern CACHE_FILE = Pattern.compile("([0-9a-f]{32}-)?[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.tmp)?");
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.ObjectCache config;
+
+    private final Path directory;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final SingleFlight<String, Entry> loading = new SingleFlight<>(true);
+
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong revalidations = new AtomicLong();
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public DiskObjectCache(MinioClientPool minioClientPool, MinioConfig.ObjectCache config) throws IOException {
+        this.minioClientPool = minioClientPool;
+        this.config = config;
+        this.directory = Paths.get(config.getDirectory());
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                // 目录可能与其它用途共用，只删除上次运行留下的缓存文件
+                if (Files.isRegularFile(file) && CACHE_FILE.matcher(file.getFileName().toString()).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 对象是否适合缓存
+     *
+     * @param stat 对象元数据
+     * @return boolean
+     */
+    public boolean accepts(ObjectStat stat) {
+        return stat.length() <= config.getMaxObjectSize() && stat.length() <= config.getMaxBytes();
+    }
+
+    /**
+     * 从缓存读取对象，未命中时先下载到缓存
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param stat       对象元数据，ETag 用于校验缓存
+     * @param offset     起始位置
+     * @param length     读取长度，为 null 时读到结尾
+     * @return InputStream
+     */
+    public InputStream open(String bucketName, String objectName, ObjectStat stat, long offset, Long length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        String key = bucketName + "/" + objectName;
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        boolean cached = entry != null && entry.etag.equals(stat.etag());
+        if (cached) {
+            hits.incrementAndGet();
+        } else {
+            Entry previous = entry;
+            entry = load(key, bucketName, objectName, stat, previous);
+            // 校验返回 304 时沿用原条目
+            cached = previous != null && entry == previous;
+        }
+        try {
+            return read(entry, offset, length, cached);
+        } catch (NoSuchFileException e) {
+            // 缓存文件在打开前被淘汰或替换
+            discard(key, entry);
+        }
+        try {
+            return read(load(key, bucketName, objectName, stat, null), offset, length, false);
+        } catch (NoSuchFileException e) {
+            log.debug("cache file of {} evicted before read, reading from origin", key);
+            return origin(bucketName, objectName, stat, offset, length);
+        }
+    }
+
+    /**
+     * 移除对象的缓存文件，对象被删除时调用；对象被覆盖时无需调用，下次读取会按 ETag 重新校验
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     */
+    public void invalidate(String bucketName, String objectName) {
+        synchronized (entries) {
+            Entry entry = entries.remove(bucketName + "/" + objectName);
+            if (entry != null) {
+                totalBytes -= entry.length;
+                entry.delete();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * 从缓存读出、未从 MinIO 下载的字节数
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * @param cached 是否命中缓存（包括校验返回 304），刚下载的不计入 bytesSaved
+     */
+    private InputStream read(Entry entry, long offset, Long length, boolean cached) throws IOException {
+        long end = length == null ? entry.length : Math.min(entry.length, offset + length);
+        InputStream stream = entry.open(offset, end, config.getMmapThreshold());
+        if (cached) {
+            bytesSaved.addAndGet(Math.max(0, end - offset));
+        }
+        return stream;
+    }
+
+    /**
+     * 不经过缓存直接读取，ETag 与 stat 不一致时失败
+     */
+    private InputStream origin(String bucketName, String objectName, ObjectStat stat, long offset, Long length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        GetObjectArgs.Builder builder = GetObjectArgs.builder().bucket(bucketName).object(objectName).extraHeaders(ReadConditions.ifMatch(stat.etag()));
+        if (offset > 0 || length != null) {
+            builder.offset(offset);
+        }
+        if (length != null) {
+            builder.length(length);
+        }
+        GetObjectArgs args = builder.build();
+        return minioClientPool.executeStream(client -> client.getObject(args));
+    }
+
+    /**
+     * 文件已不存在的条目仍在缓存中时移除
+     */
+    private void discard(String key, Entry entry) {
+        synchronized (entries) {
+            if (entries.remove(key, entry)) {
+                totalBytes -= entry.length;
+            }
+        }
+    }
+
+    /**
+     * 同一对象的并发未命中共享一次下载
+     */
+    private Entry load(String key, String bucketName, String objectName, ObjectStat stat, Entry previous) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        AtomicBoolean fetched = new AtomicBoolean();
+        Entry entry = loading.run(key, () -> {
+            fetched.set(true);
+            return fetch(key, bucketName, objectName, stat, previous);
+        });
+        if (!fetched.get()) {
+            // 共享了其它线程的结果：对方校验返回 304 时本次计为命中，否则计为未命中
+            if (previous != null && entry == previous) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        return entry;
+    }
+
+    private Entry fetch(String key, String bucketName, String objectName, ObjectStat stat, Entry previous) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        GetObjectArgs.Builder builder = GetObjectArgs.builder().bucket(bucketName).object(objectName);
+        if (previous != null) {
+            // 缓存的内容仍是最新时服务端返回 304，不传输数据
+            builder.extraHeaders(ReadConditions.ifNoneMatch(previous.etag));
+        } else {
+            builder.extraHeaders(ReadConditions.ifMatch(stat.etag()));
+        }
+        GetObjectArgs args = builder.build();
+        InputStream stream;
+        try {
+            stream = minioClientPool.executeStream(client -> client.getObject(args));
+        } catch (InvalidResponseException e) {
+            if (previous != null && MinioExceptions.isNotModified(e)) {
+                MinioInstrumentation.handled(MinioExceptions::isNotModified);
+                revalidations.incrementAndGet();
+                hits.incrementAndGet();
+                return previous;
+            }
+            throw e;
+        }
+        misses.incrementAndGet();
+        Path temp = directory.resolve(UUID.randomUUID() + ".tmp");
+        Path file = directory.resolve(fileName(key) + "-" + UUID.randomUUID());
+        long length;
+        try (InputStream in = stream) {
+            length = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // 流中无法取得响应的 ETag，沿用 stat 中的 ETag；对象在两者之间被覆盖时，下次 stat 不一致会再次校验
+        Entry entry = new Entry(file, stat.etag(), length);
+        put(key, entry);
+        return entry;
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            totalBytes += entry.length;
+            if (old != null) {
+                totalBytes -= old.length;
+                old.delete();
+            }
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes > config.getMaxBytes() && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                if (eldest == entry) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.length;
+                eldest.delete();
+            }
+        }
+    }
+
+    private static String fileName(String key) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            hex.append(String.format("%02x", digest[i]));
+        }
+        return hex.toString();
+    }
+
+    private static final class Entry {
+
+        private final Path file;
+
+        private final String etag;
+
+        private final long length;
+
+        private volatile MappedByteBuffer mapped;
+
+        private Entry(Path file, String etag, long length) {
+            this.file = file;
+            this.etag = etag;
+            this.length = length;
+        }
+
+        InputStream open(long offset, long end, long mmapThreshold) throws IOException {
+            if (length <= mmapThreshold) {
+                MappedByteBuffer buffer = mapped;
+                if (buffer == null) {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                    }
+                    mapped = buffer;
+                }
+                ByteBuffer view = buffer.duplicate();
+                view.position((int) Math.min(offset, length));
+                view.limit((int) end);
+                return new ByteBufferInputStream(view);
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new FilterInputStream(new FileChannelRangeInputStream(channel, offset, Math.max(0, end - offset))) {
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+
+        /**
+         * 删除文件；已打开的流和映射在 Linux 上仍可继续读取
+         */
+        void delete() {
+            mapped = null;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("delete cache file {} failed", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.GetObjectArgs;
+import io.minio.errors.*;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 面向尾延迟的 GET：按操作统计首字节耗时，请求超过该操作的分位耗时仍未返回首字节时再发一个对冲请求，取先返回的结果；
+ * 临时错误按抖动指数退避重试。对冲和重试都消耗重试预算，预算耗尽时不再发出额外请求。
+ * 原请求在调用线程上执行，只有对冲请求使用大小为 hedgeThreads 的线程池；
+ * 取消后返回的一方需要 OkHttpClient 包含 {@link #interceptor()}，否则只能等它返回后关闭
+ */
+@Slf4j
+public class HedgedReader {
+
+    private static final ThreadLocal<CallHolder> CALL = new ThreadLocal<>();
+
+    private static final int NONE = 0;
+
+    private static final int PRIMARY = 1;
+
+    private static final int HEDGE = 2;
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.Read read;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final ConcurrentMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private final RetryBudget budget;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    private final AtomicLong hedgesRejected = new AtomicLong();
+
+    public HedgedReader(MinioClientPool minioClientPool, MinioConfig.Read read) {
+        this.minioClientPool = minioClientPool;
+        this.read = read;
+        int threads = Math.max(read.getHedgeThreads(), 1);
+        // 不排队：线程都在忙时拒绝，即不发出对冲请求
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), new NamedThreadFactory("minio-hedge"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("minio-hedge-timer"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.budget = new RetryBudget(read.getRetryBudgetRatio(), read.getRetryBudgetMax());
+    }
+
+    /**
+     * 读取对象
+     *
+     * @param operation 操作名称，分别统计各操作的耗时分布，例如 getObject、getRange
+     * @param args      GET 参数
+     * @return InputStream，已收到首字节
+     */
+    public InputStream get(String operation, GetObjectArgs args) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        LatencyWindow window = windows.computeIfAbsent(operation, key -> new LatencyWindow(read.getWindowSize()));
+        requests.incrementAndGet();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                InputStream stream = read.isHedgeEnabled() ? hedged(window, args) : attempt(window, args, null);
+                budget.onSuccess();
+                return stream;
+            } catch (Exception e) {
+                if (attempt >= read.getMaxAttempts() || !MinioExceptions.isRetryable(e)) {
+                    MinioExceptions.rethrow(e);
+                }
+                if (!budget.tryAcquire()) {
+                    budgetExhausted.incrementAndGet();
+                    MinioExceptions.rethrow(e);
+                }
+                retries.incrementAndGet();
+                log.warn("get {}/{} failed, retry {}", args.bucket(), args.object(), attempt, e);
+                try {
+                    Thread.sleep(backoff(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("get " + args.bucket() + "/" + args.object() + " interrupted");
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前对冲等待时间（毫秒）；样本不足时为 hedgeMaxDelay
+     *
+     * @param operation 操作名称
+     * @return long
+     */
+    public long hedgeDelay(String operation) {
+        LatencyWindow window = windows.get(operation);
+        return window == null ? read.getHedgeMaxDelay() : TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos(window));
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * 因重试预算耗尽而放弃重试或对冲的次数
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    /**
+     * 因线程池已满而未发出对冲请求的次数
+     */
+    public long getHedgesRejected() {
+        return hedgesRejected.get();
+    }
+
+    /**
+     * 记录 HTTP 调用以便取消后返回的一方，需添加到 MinioClient 使用的 OkHttpClient
+     *
+     * @return Interceptor
+     */
+    public static Interceptor interceptor() {
+        return chain -> {
+            CallHolder holder = CALL.get();
+            if (holder != null) {
+                holder.set(chain.call());
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 原请求在调用线程上发出；等待 hedgeDelay 后仍未返回首字节时，定时线程把对冲请求交给有界线程池，线程池已满则不对冲。
+     * 一方先返回首字节时取消另一方的 HTTP 调用
+     */
+    private InputStream hedged(LatencyWindow window, GetObjectArgs args) throws Exception {
+        Race race = new Race();
+        Callable<InputStream> task = TransferScheduler.propagate(MinioInstrumentation.propagate(() -> attempt(window, args, race.hedgeCall)));
+        ScheduledFuture<?> timer;
+        try {
+            timer = scheduler.schedule(() -> startHedge(race, task), hedgeDelayNanos(window), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            return attempt(window, args, null);
+        }
+        InputStream stream;
+        try {
+            stream = attempt(window, args, race.primaryCall);
+        } catch (Exception e) {
+            timer.cancel(false);
+            boolean hedgeStarted;
+            synchronized (race) {
+                race.primaryDone = true;
+                hedgeStarted = race.hedgeStarted;
+            }
+            if (!hedgeStarted) {
+                throw e;
+            }
+            // 原请求因对冲请求先返回而被取消，或者原请求失败时对冲请求仍在进行
+            InputStream hedge;
+            try {
+                hedge = await(race.hedge);
+            } catch (Exception he) {
+                // 两者都失败时以原请求的异常为准
+                throw e;
+            }
+            hedgeWins.incrementAndGet();
+            return hedge;
+        }
+        timer.cancel(false);
+        synchronized (race) {
+            race.primaryDone = true;
+        }
+        if (race.winner.compareAndSet(NONE, PRIMARY)) {
+            race.hedgeCall.cancel();
+            return stream;
+        }
+        // 对冲请求恰好先返回
+        closeQuietly(stream);
+        hedgeWins.incrementAndGet();
+        return await(race.hedge);
+    }
+
+    /**
+     * 在定时线程上执行，只做判断和提交
+     */
+    private void startHedge(Race race, Callable<InputStream> task) {
+        synchronized (race) {
+            if (race.primaryDone || race.winner.get() != NONE) {
+                return;
+            }
+            if (!budget.tryAcquire()) {
+                budgetExhausted.incrementAndGet();
+                return;
+            }
+            race.hedgeStarted = true;
+        }
+        try {
+            executor.execute(() -> {
+                InputStream stream;
+                try {
+                    stream = task.call();
+                } catch (Throwable t) {
+                    race.hedge.completeExceptionally(t);
+                    return;
+                }
+                if (race.winner.compareAndSet(NONE, HEDGE)) {
+                    race.hedge.complete(stream);
+                    race.primaryCall.cancel();
+                } else {
+                    // 原请求已返回，后返回的一方直接关闭
+                    closeQuietly(stream);
+                    race.hedge.completeExceptionally(new CancellationException("primary request returned first"));
+                }
+            });
+            hedges.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            hedgesRejected.incrementAndGet();
+            race.hedge.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 发起一次 GET 并等待首字节，记录首字节耗时
+     *
+     * @param call 记录本次 HTTP 调用以便取消，可为 null
+     */
+    private InputStream attempt(LatencyWindow window, GetObjectArgs args, CallHolder call) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        long start = System.nanoTime();
+        CallHolder previous = CALL.get();
+        CALL.set(call);
+        InputStream stream;
+        try {
+            stream = minioClientPool.executeStream(client -> {
+                try {
+                    return client.getObject(args);
+                } catch (IOException e) {
+                    // 被取消的调用不是节点故障，不抛出 IOException 以免节点被标记为不可用
+                    throw cancelled(call, e);
+                }
+            });
+        } finally {
+            CALL.set(previous);
+        }
+        PushbackInputStream pushback = new PushbackInputStream(stream, 1);
+        try {
+            int b = pushback.read();
+            if (b >= 0) {
+                pushback.unread(b);
+            }
+        } catch (IOException e) {
+            closeQuietly(pushback);
+            throw cancelled(call, e);
+        }
+        window.record(System.nanoTime() - start);
+        return pushback;
+    }
+
+    /**
+     * 调用已被取消时转换为 CancellationException，否则原样抛出
+     */
+    private static RuntimeException cancelled(CallHolder call, IOException e) throws IOException {
+        if (call != null && call.isCancelled()) {
+            CancellationException cancelled = new CancellationException("cancelled by hedged request");
+            cancelled.initCause(e);
+            return cancelled;
+        }
+        throw e;
+    }
+
+    private InputStream await(CompletableFuture<InputStream> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            closeWhenDone(future);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("get interrupted");
+        }
+    }
+
+    private long hedgeDelayNanos(LatencyWindow window) {
+        long min = TimeUnit.MILLISECONDS.toNanos(read.getHedgeMinDelay());
+        long max = TimeUnit.MILLISECONDS.toNanos(read.getHedgeMaxDelay());
+        if (window.count() < read.getMinSamples()) {
+            return max;
+        }
+        return Math.min(Math.max(window.percentile(read.getHedgePercentile()), min), max);
+    }
+
+    private long backoff(int attempt) {
+        long base = Math.min(read.getRetryBackoff() << Math.min(attempt - 1, 10), read.getMaxRetryBackoff());
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return e;
+    }
+
+    private static void closeWhenDone(CompletableFuture<InputStream> future) {
+        future.whenComplete((stream, t) -> {
+            if (stream != null) {
+                closeQuietly(stream);
+            }
+        });
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("close stream failed", e);
+        }
+    }
+
+    /**
+     * 一次对冲读取中原请求与对冲请求的状态
+     */
+    private static final class Race {
+        private final CallHolder primaryCall = new CallHolder();
+        private final CallHolder hedgeCall = new CallHolder();
+        private final CompletableFuture<InputStream> hedge = new CompletableFuture<>();
+        private final AtomicInteger winner = new AtomicInteger(NONE);
+        private boolean primaryDone;
+        private boolean hedgeStarted;
+    }
+
+    /**
+     * 当前的 HTTP 调用；取消后再发出的调用（如区域查询后的 GET）立即取消
+     */
+    private static final class CallHolder {
+        private Call call;
+        private boolean cancelled;
+
+        private synchronized void set(Call call) {
+            this.call = call;
+            if (cancelled) {
+                call.cancel();
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.light.minio.util;
+
+/**
+ * HTTP Range 请求头解析，仅支持单个字节区间
+ */
+final class HttpRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * 起始位置（含）
+     */
+    final long start;
+
+    /**
+     * 结束位置（含）
+     */
+    final long end;
+
+    private HttpRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    long length() {
+        return end - start + 1;
+    }
+
+    String contentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    /**
+     * 解析 Range 请求头
+     *
+     * @param header      Range 请求头，可为 null
+     * @param totalLength 对象长度
+     * @return 无 Range 请求头、不是 bytes 单位或包含多个区间时返回 null（按完整内容响应）
+     * @throws IllegalArgumentException 区间无法满足时抛出，应响应 416
+     */
+    static HttpRange parse(String header, long totalLength) {
+        if (header == null || !header.startsWith(BYTES_UNIT)) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        if (spec.indexOf(',') >= 0) {
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        long start;
+        long end;
+        try {
+            if (first.isEmpty()) {
+                // bytes=-N 表示最后 N 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    throw new IllegalArgumentException("unsatisfiable range: " + header);
+                }
+                start = Math.max(0, totalLength - suffix);
+                end = totalLength - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? totalLength - 1 : Math.min(Long.parseLong(last), totalLength - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start < 0 || start >= totalLength || end < start) {
+            throw new IllegalArgumentException("unsatisfiable range: " + header);
+        }
+        return new HttpRange(start, end);
+    }
+}
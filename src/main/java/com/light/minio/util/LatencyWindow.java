@@ -0,0 +1,61 @@
+package com.light.minio.util;
+
+import java.util.Arrays;
+
+/**
+ * 最近 N 次耗时的滑动窗口，用于估算分位数
+ * 分位数每记录 N/16 次重新计算一次，读取时不排序
+ */
+class LatencyWindow {
+
+    private final long[] samples;
+
+    private final int recomputeInterval;
+
+    private int next;
+
+    private int count;
+
+    private int sinceRecompute;
+
+    private double cachedPercentile = -1;
+
+    private long cachedValue;
+
+    LatencyWindow(int size) {
+        this.samples = new long[Math.max(size, 16)];
+        this.recomputeInterval = Math.max(samples.length / 16, 1);
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceRecompute++;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile 分位，取值 0~1
+     * @return 纳秒，没有样本时返回 -1
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        if (cachedPercentile != percentile || sinceRecompute >= recomputeInterval) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            cachedValue = sorted[Math.min(Math.max(index, 0), count - 1)];
+            cachedPercentile = percentile;
+            sinceRecompute = 0;
+        }
+        return cachedValue;
+    }
+}
@@ -0,0 +1,79 @@
+package com.light.minio.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.BeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Micrometer 的 MinioMetrics 实现
+ * 指标：minio.operation（耗时直方图，标签 operation/outcome）、minio.operation.round.trips（每次调用的请求数）、
+ * minio.bytes（标签 operation/direction）、minio.errors（标签 operation/exception）
+ */
+public class MicrometerMinioMetrics implements MinioMetrics {
+
+    private final MeterRegistry registry;
+
+    public MicrometerMinioMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 容器中有 MeterRegistry 时创建，否则返回 null；调用前应先确认 classpath 中有 Micrometer
+     *
+     * @param beanFactory Spring 容器
+     * @return MinioMetrics
+     */
+    public static MinioMetrics create(BeanFactory beanFactory) {
+        MeterRegistry registry = beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable();
+        return registry == null ? null : new MicrometerMinioMetrics(registry);
+    }
+
+    @Override
+    public void recordLatency(String operation, long nanos, boolean success) {
+        Timer.builder("minio.operation")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRoundTrips(String operation, int roundTrips) {
+        DistributionSummary.builder("minio.operation.round.trips")
+                .tag("operation", operation)
+                .register(registry)
+                .record(roundTrips);
+    }
+
+    @Override
+    public void recordBytesIn(String operation, long bytes) {
+        bytes(operation, "in").increment(bytes);
+    }
+
+    @Override
+    public void recordBytesOut(String operation, long bytes) {
+        bytes(operation, "out").increment(bytes);
+    }
+
+    @Override
+    public void recordError(String operation, Throwable error) {
+        Counter.builder("minio.errors")
+                .tag("operation", operation)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    private Counter bytes(String operation, String direction) {
+        return Counter.builder("minio.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
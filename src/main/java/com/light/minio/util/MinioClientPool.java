@@ -0,0 +1,298 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.MinioClient;
+import io.minio.errors.*;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多节点 MinioClient 池
+ * 按轮询或最少未完成请求选择节点；后台定期访问 /minio/health/live 检查节点健康，
+ * 连续失败达到阈值的节点移出轮询，恢复后自动加回。所有节点都不健康时仍在全部节点中选择。
+ * 关闭健康检查时节点不会被移出，否则移出的节点无法恢复。
+ */
+@Slf4j
+public class MinioClientPool {
+
+    private static final String HEALTH_PATH = "/minio/health/live";
+
+    /**
+     * 在选定的 MinioClient 上执行的一次调用
+     */
+    public interface MinioCall<T> {
+        T call(MinioClient client) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException;
+    }
+
+    private final List<Node> nodes;
+
+    private final MinioConfig.Balancer balancer;
+
+    private final OkHttpClient healthClient;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param clients    节点地址（构建 MinioClient 使用的地址）到 MinioClient 的映射
+     * @param httpClient 用于健康检查的 HTTP 客户端，健康检查不经过其中的拦截器（限速、对冲取消）
+     * @param balancer   负载均衡配置
+     */
+    public MinioClientPool(Map<HttpUrl, MinioClient> clients, OkHttpClient httpClient, MinioConfig.Balancer balancer) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("at least one minio endpoint is required");
+        }
+        List<Node> list = new ArrayList<>(clients.size());
+        for (Map.Entry<HttpUrl, MinioClient> entry : clients.entrySet()) {
+            list.add(new Node(entry.getKey(), entry.getValue()));
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        this.balancer = balancer;
+        OkHttpClient.Builder healthBuilder = httpClient.newBuilder()
+                .connectTimeout(balancer.getHealthCheckTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(balancer.getHealthCheckTimeout(), TimeUnit.MILLISECONDS);
+        healthBuilder.interceptors().clear();
+        healthBuilder.networkInterceptors().clear();
+        this.healthClient = healthBuilder.build();
+        if (nodes.size() > 1 && balancer.getHealthCheckInterval() > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("minio-health"));
+            scheduler.scheduleWithFixedDelay(this::checkHealth, balancer.getHealthCheckInterval(),
+                    balancer.getHealthCheckInterval(), TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 选择一个节点执行调用，并统计该节点的未完成请求数；启用健康检查时与节点通信失败的网络错误计为节点连续失败，调用成功时清零。
+     * 请求数和错误计入当前线程的 MinioInstrumentation.Scope，被取消的调用（CancellationException）不计为错误
+     *
+     * @param call 调用
+     * @return 调用结果
+     */
+    public <T> T execute(MinioCall<T> call) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Node node = select();
+        node.outstanding.incrementAndGet();
+        try {
+            return invoke(node, call);
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * 同 execute，用于返回响应体流的调用（如 getObject）：流关闭前仍计为该节点的未完成请求
+     *
+     * @param call 调用
+     * @return 响应体流，关闭时释放未完成请求数
+     */
+    public InputStream executeStream(MinioCall<? extends InputStream> call) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Node node = select();
+        node.outstanding.incrementAndGet();
+        boolean streaming = false;
+        try {
+            InputStream stream = invoke(node, call);
+            if (stream == null) {
+                return null;
+            }
+            streaming = true;
+            return new BodyStream(stream, node);
+        } finally {
+            if (!streaming) {
+                node.outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    private <T> T invoke(Node node, MinioCall<T> call) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        node.requests.incrementAndGet();
+        MinioInstrumentation.onRequest();
+        try {
+            T result = call.call(node.client);
+            if (scheduler != null) {
+                node.onCallSuccess();
+            }
+            return result;
+        } catch (Exception e) {
+            // 本地文件读写等错误不说明节点有问题
+            if (scheduler != null && MinioExceptions.isTransportFailure(e)) {
+                node.onFailure(balancer.getUnhealthyThreshold());
+            }
+            if (!(e instanceof CancellationException)) {
+                MinioInstrumentation.onError(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 选择一个节点的 MinioClient，用于返回惰性结果（如列表迭代器）或纯本地计算（如预签名）的调用
+     *
+     * @return MinioClient
+     */
+    public MinioClient client() {
+        Node node = select();
+        node.requests.incrementAndGet();
+        MinioInstrumentation.onRequest();
+        return node.client;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Node select() {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        List<Node> candidates = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (node.healthy) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = nodes;
+        }
+        int start = (cursor.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+        if (balancer.getStrategy() == MinioConfig.Balancer.Strategy.ROUND_ROBIN) {
+            return candidates.get(start);
+        }
+        // 最少未完成请求，相同时从轮询位置开始选择，避免总是落到第一个节点
+        Node best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Node node = candidates.get((start + i) % candidates.size());
+            if (best == null || node.outstanding.get() < best.outstanding.get()) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private void checkHealth() {
+        for (Node node : nodes) {
+            Request request = new Request.Builder().url(node.url.newBuilder().encodedPath(HEALTH_PATH).build()).get().build();
+            try (Response response = healthClient.newCall(request).execute()) {
+                if (response.isSuccessful()) {
+                    node.onSuccess(balancer.getHealthyThreshold());
+                } else {
+                    node.onFailure(balancer.getUnhealthyThreshold());
+                }
+            } catch (Exception e) {
+                node.onFailure(balancer.getUnhealthyThreshold());
+            }
+        }
+    }
+
+    /**
+     * 响应体流，关闭时释放节点的未完成请求数
+     */
+    private static final class BodyStream extends FilterInputStream {
+
+        private final Node node;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private BodyStream(InputStream stream, Node node) {
+            super(stream);
+            this.node = node;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    node.outstanding.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 节点及其运行时状态
+     */
+    @Getter
+    public static class Node {
+
+        private final HttpUrl url;
+
+        /**
+         * 节点地址，不以 / 结尾，例如 http://10.0.0.1:9000
+         */
+        private final String endpoint;
+
+        private final MinioClient client;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final AtomicInteger consecutiveSuccesses = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        Node(HttpUrl url, MinioClient client) {
+            String endpoint = url.toString();
+            this.url = url;
+            this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+            this.client = client;
+        }
+
+        private void onFailure(int unhealthyThreshold) {
+            consecutiveSuccesses.set(0);
+            if (consecutiveFailures.incrementAndGet() >= unhealthyThreshold && healthy) {
+                healthy = false;
+                log.warn("minio endpoint {} marked unhealthy", endpoint);
+            }
+        }
+
+        /**
+         * 调用成功只清零连续失败数，移出的节点是否恢复由健康检查决定
+         */
+        private void onCallSuccess() {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        }
+
+        private void onSuccess(int healthyThreshold) {
+            consecutiveFailures.set(0);
+            if (consecutiveSuccesses.incrementAndGet() >= healthyThreshold && !healthy) {
+                healthy = true;
+                log.info("minio endpoint {} back in rotation", endpoint);
+            }
+        }
+    }
+}
@@ -1,28 +1,46 @@
 package com.light.minio.util;
 
+import com.light.minio.config.MinioConfig;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.InputSerialization;
 import io.minio.messages.Item;
+import io.minio.messages.OutputSerialization;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * MinIO 客户端工具类
@@ -32,10 +50,205 @@ import java.util.concurrent.TimeUnit;
 public class MinioClientUtils {
 
     @Autowired
-    private MinioClient minioClient;
+    private MinioClientPool minioClientPool;
+
+    @Autowired
+    private MinioConfig minioConfig;
+
+    @Autowired
+    @Qualifier("minioHttpClient")
+    private OkHttpClient minioHttpClient;
+
+    @Autowired
+    private MinioInstrumentation minioInstrumentation;
+
+    @Autowired
+    private TransferScheduler transferScheduler;
 
     private static final int DEFAULT_EXPIRY_TIME = 7 * 24 * 3600;
 
+    /**
+     * downloadFile 复制数据使用的缓冲区，按线程复用
+     */
+    private static final ThreadLocal<byte[]> COPY_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    private BucketExistsCache bucketExistsCache;
+
+    private ObjectStatCache objectStatCache;
+
+    private ParallelUploader parallelUploader;
+
+    private ParallelDownloader parallelDownloader;
+
+    private ObjectListing objectListing;
+
+    private PrefixDeleter prefixDeleter;
+
+    private Presigner presigner;
+
+    private DiskObjectCache objectCache;
+
+    private HedgedReader hedgedReader;
+
+    private ContentDedup contentDedup;
+
+    private DirectorySync directorySync;
+
+    private ObjectComposer objectComposer;
+
+    private SingleFlight<String, Boolean> bucketExistsFlight;
+
+    private SingleFlight<String, ObjectStat> statFlight;
+
+    private SingleFlight<String, byte[]> readFlight;
+
+    @PostConstruct
+    public void init() {
+        MinioConfig.BucketCache bucketCache = minioConfig.getBucketCache();
+        bucketExistsCache = new BucketExistsCache(bucketCache.getTtl(), bucketCache.getNegativeTtl());
+        MinioConfig.StatCache statCache = minioConfig.getStatCache();
+        objectStatCache = new ObjectStatCache(statCache.getTtl(), statCache.getMaxEntries());
+        parallelUploader = new ParallelUploader(minioClientPool, minioConfig.getUpload(), minioInstrumentation);
+        parallelDownloader = new ParallelDownloader(minioClientPool, minioConfig.getDownload(), minioInstrumentation);
+        objectListing = new ObjectListing(minioClientPool, minioConfig.getListing(), minioConfig.getUpload().getPartPrefix());
+        prefixDeleter = new PrefixDeleter(minioClientPool, objectListing, minioConfig.getDelete());
+        hedgedReader = new HedgedReader(minioClientPool, minioConfig.getRead());
+        contentDedup = new ContentDedup(minioClientPool, minioConfig.getDedup());
+        directorySync = new DirectorySync(this, objectListing, minioConfig.getSync(), minioConfig.getDelete());
+        objectComposer = new ObjectComposer(minioClientPool, objectListing, minioConfig.getCopy(), minioConfig.getUpload());
+        parallelUploader.abortStaleUploadsAsync();
+        if (StringUtils.isNotEmpty(minioConfig.getBucketName())) {
+            objectComposer.removeStaleTemporaryAsync(minioConfig.getBucketName());
+        }
+        boolean coalesce = minioConfig.getCoalesce().isEnabled();
+        bucketExistsFlight = new SingleFlight<>(coalesce);
+        statFlight = new SingleFlight<>(coalesce);
+        readFlight = new SingleFlight<>(coalesce);
+        MinioConfig.Presign presign = minioConfig.getPresign();
+        HttpUrl presignEndpoint = StringUtils.isNotEmpty(presign.getEndpoint()) ? HttpUrl.parse(presign.getEndpoint()) : minioClientPool.getNodes().get(0).getUrl();
+        if (presignEndpoint == null) {
+            throw new IllegalStateException("invalid spring.minio.presign.endpoint " + presign.getEndpoint());
+        }
+        presigner = new Presigner(presignEndpoint, minioConfig.getAccessKey(), minioConfig.getSecretKey(), presign);
+        if (minioConfig.getObjectCache().isEnabled()) {
+            try {
+                objectCache = new DiskObjectCache(minioClientPool, minioConfig.getObjectCache());
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to initialize object cache " + minioConfig.getObjectCache().getDirectory(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        parallelUploader.shutdown();
+        parallelDownloader.shutdown();
+        objectListing.shutdown();
+        prefixDeleter.shutdown();
+        hedgedReader.shutdown();
+        directorySync.shutdown();
+        objectComposer.shutdown();
+    }
+
+    /**
+     * 存储桶存在性缓存，可用于查看命中/未命中次数
+     *
+     * @return BucketExistsCache
+     */
+    public BucketExistsCache getBucketExistsCache() {
+        return bucketExistsCache;
+    }
+
+    /**
+     * 对象元数据缓存，可用于查看命中/未命中次数
+     *
+     * @return ObjectStatCache
+     */
+    public ObjectStatCache getObjectStatCache() {
+        return objectStatCache;
+    }
+
+    /**
+     * 并行分片上传，可用于查看上传/续传的分片数
+     *
+     * @return ParallelUploader
+     */
+    public ParallelUploader getParallelUploader() {
+        return parallelUploader;
+    }
+
+    /**
+     * 按内容去重上传，可用于查看命中次数和节省的字节数
+     *
+     * @return ContentDedup
+     */
+    public ContentDedup getContentDedup() {
+        return contentDedup;
+    }
+
+    /**
+     * 并行分段下载，可用于查看下载/续传/重试的分段数
+     *
+     * @return ParallelDownloader
+     */
+    public ParallelDownloader getParallelDownloader() {
+        return parallelDownloader;
+    }
+
+    /**
+     * 本地预签名，可用于查看 URL 缓存命中/未命中次数
+     *
+     * @return Presigner
+     */
+    public Presigner getPresigner() {
+        return presigner;
+    }
+
+    /**
+     * 本地磁盘对象缓存，可用于查看命中率和节省的字节数，未启用时返回 null
+     *
+     * @return DiskObjectCache
+     */
+    public DiskObjectCache getObjectCache() {
+        return objectCache;
+    }
+
+    /**
+     * 对冲/重试读取，可用于查看对冲、重试次数和当前对冲等待时间
+     *
+     * @return HedgedReader
+     */
+    public HedgedReader getHedgedReader() {
+        return hedgedReader;
+    }
+
+    /**
+     * statObject 请求合并，可用于查看实际执行/共享结果的次数
+     *
+     * @return SingleFlight
+     */
+    public SingleFlight<String, ObjectStat> getStatFlight() {
+        return statFlight;
+    }
+
+    /**
+     * 小对象 getObject 请求合并，可用于查看实际下载/共享缓冲区的次数
+     *
+     * @return SingleFlight
+     */
+    public SingleFlight<String, byte[]> getReadFlight() {
+        return readFlight;
+    }
+
+    /**
+     * HTTP 连接池与未完成请求的运行时状态
+     *
+     * @return TransportStats
+     */
+    public TransportStats getTransportStats() {
+        return TransportStats.of(minioHttpClient, minioClientPool);
+    }
+
     /**
      * 检查存储桶是否存在
      *
@@ -43,12 +256,17 @@ public class MinioClientUtils {
      * @return boolean
      */
     public boolean bucketExists(String bucketName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = false;
-        flag = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-        if (flag) {
-            return true;
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("bucketExists", bucketName, null)) {
+            Boolean cached = bucketExistsCache.get(bucketName);
+            if (cached != null) {
+                return cached;
+            }
+            return bucketExistsFlight.run(bucketName, () -> {
+                boolean flag = minioClientPool.execute(client -> client.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()));
+                bucketExistsCache.put(bucketName, flag);
+                return flag;
+            });
         }
-        return false;
     }
 
     /**
@@ -59,10 +277,11 @@ public class MinioClientUtils {
     public boolean makeBucket(String bucketName) throws IOException, InvalidKeyException, InvalidResponseException, RegionConflictException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
         boolean flag = bucketExists(bucketName);
         if (!flag) {
-            minioClient.makeBucket(
+            minioClientPool.client().makeBucket(
                     MakeBucketArgs.builder()
                             .bucket(bucketName)
                             .build());
+            bucketExistsCache.put(bucketName, true);
             return true;
         } else {
             return false;
@@ -89,7 +308,7 @@ public class MinioClientUtils {
      * @return List<Bucket>
      */
     public List<Bucket> listBuckets() throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        return minioClient.listBuckets();
+        return minioClientPool.execute(MinioClient::listBuckets);
     }
 
     /**
@@ -101,16 +320,19 @@ public class MinioClientUtils {
     public boolean removeBucket(String bucketName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
         boolean flag = bucketExists(bucketName);
         if (flag) {
-            Iterable<Result<Item>> myObjects = listObjects(bucketName);
-            for (Result<Item> result : myObjects) {
-                Item item = result.get();
-                // 有对象文件，则删除失败
-                if (item.size() > 0) {
-                    return false;
-                }
+            // 有对象文件，则删除失败；只列出一个对象即可判断
+            if (!objectListing.isEmpty(bucketName, null)) {
+                return false;
             }
+            // 合并留下的临时对象不计入，但服务端要求删除前存储桶为空
+            objectComposer.removeTemporary(bucketName);
             // 删除存储桶，注意，只有存储桶为空时才能删除成功。
-            minioClient.removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build());
+            minioClientPool.execute(client -> {
+                client.removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build());
+                return null;
+            });
+            bucketExistsCache.invalidate(bucketName);
+            objectStatCache.invalidateBucket(bucketName);
             flag = bucketExists(bucketName);
             if (!flag) {
                 return true;
@@ -127,16 +349,18 @@ public class MinioClientUtils {
      * @return List<String>
      */
     public List<String> listObjectNames(String bucketName) throws XmlParserException, IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, InvalidBucketNameException, InsufficientDataException, InternalException {
-        List<String> listObjectNames = new ArrayList<>();
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            Iterable<Result<Item>> myObjects = listObjects(bucketName);
-            for (Result<Item> result : myObjects) {
-                Item item = result.get();
-                listObjectNames.add(item.objectName());
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("list", bucketName, null)) {
+            List<String> listObjectNames = new ArrayList<>();
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                Iterable<Result<Item>> myObjects = listObjects(bucketName);
+                for (Result<Item> result : myObjects) {
+                    Item item = result.get();
+                    listObjectNames.add(item.objectName());
+                }
             }
+            return listObjectNames;
         }
-        return listObjectNames;
     }
 
     /**
@@ -148,13 +372,62 @@ public class MinioClientUtils {
     public Iterable<Result<Item>> listObjects(String bucketName) throws XmlParserException, IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, InvalidBucketNameException, InsufficientDataException, InternalException {
         boolean flag = bucketExists(bucketName);
         if (flag) {
-            return minioClient.listObjects( ListObjectsArgs.builder().bucket(bucketName).build());
+            return objectListing.visible(minioClientPool.client().listObjects( ListObjectsArgs.builder().bucket(bucketName).build()));
         }
         return null;
     }
 
     /**
-     * 通过文件上传到对象
+     * 惰性列出存储桶中的对象，按页从服务端拉取，不会一次性读入内存
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delimiter  分隔符，例如 "/"，为 null 时递归列出所有对象
+     * @param startAfter 从该对象名之后开始，可为 null
+     * @return Stream<Item>，遍历出错时抛出 MinioRuntimeException；存储桶不存在时返回空 Stream
+     */
+    public Stream<Item> streamObjects(String bucketName, String prefix, String delimiter, String startAfter) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        if (!bucketExists(bucketName)) {
+            return Stream.empty();
+        }
+        return objectListing.stream(bucketName, prefix, delimiter, startAfter);
+    }
+
+    /**
+     * 分页列出存储桶中的对象，每页只发起一次请求
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delimiter  分隔符，例如 "/"，为 null 时递归列出所有对象
+     * @param startAfter 上一页的 ObjectPage.getNextStartAfter()，第一页传 null
+     * @param maxKeys    每页数量，最大 1000
+     * @return ObjectPage，存储桶不存在时返回 null
+     */
+    public ObjectPage listObjectsPage(String bucketName, String prefix, String delimiter, String startAfter, int maxKeys) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("list", bucketName, prefix)) {
+            if (!bucketExists(bucketName)) {
+                return null;
+            }
+            return objectListing.page(bucketName, prefix, delimiter, startAfter, maxKeys);
+        }
+    }
+
+    /**
+     * 按 prefix 下一级目录分片并行列出对象，结果无序，使用完毕后应关闭 Stream
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @return Stream<Item>；存储桶不存在时返回空 Stream
+     */
+    public Stream<Item> streamObjectsParallel(String bucketName, String prefix) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        if (!bucketExists(bucketName)) {
+            return Stream.empty();
+        }
+        return objectListing.parallelStream(bucketName, prefix);
+    }
+
+    /**
+     * 通过文件上传到对象，文件大小达到 spring.minio.upload.parallel-threshold 时并行分片上传
      *
      * @param bucketName 存储桶名称
      * @param objectName 存储桶里的对象名称
@@ -162,18 +435,203 @@ public class MinioClientUtils {
      * @return boolean
      */
     public boolean uploadObject(String bucketName, String objectName, String fileName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            minioClient.uploadObject(
-                    UploadObjectArgs.builder()
-                            .bucket(bucketName).object(objectName).filename(fileName).build());
-            ObjectStat statObject = statObject(bucketName, objectName);
-            if (statObject != null && statObject.length() > 0) {
-                return true;
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("put", bucketName, objectName)) {
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                long size = new File(fileName).length();
+                if (size >= minioConfig.getUpload().getParallelThreshold()) {
+                    parallelUploader.uploadFile(bucketName, objectName, fileName, null);
+                } else {
+                    UploadObjectArgs args = UploadObjectArgs.builder()
+                            .bucket(bucketName).object(objectName).filename(fileName).build();
+                    minioClientPool.execute(client -> {
+                        client.uploadObject(args);
+                        return null;
+                    });
+                }
+                scope.bytesOut(size);
+                objectStatCache.invalidate(bucketName, objectName);
+                ObjectStat statObject = statObject(bucketName, objectName);
+                if (statObject != null && statObject.length() > 0) {
+                    return true;
+                }
             }
+            return false;
+
         }
-        return false;
+    }
 
+    /**
+     * 在服务端执行 S3 Select 查询，只返回匹配的记录，结果边接收边读取，使用完毕后应关闭流
+     * 格式可用 ObjectSelect.csv/json/parquet 和 ObjectSelect.csvOutput/jsonOutput 创建
+     *
+     * @param bucketName          存储桶名称
+     * @param objectName          存储桶里的对象名称
+     * @param sqlExpression       查询语句，例如 select s.id, s.name from S3Object s where s.status = 'failed'
+     * @param inputSerialization  对象格式（CSV、JSON 或 Parquet）
+     * @param outputSerialization 结果格式（CSV 或 JSON）
+     * @param listener            进度和统计回调，可为 null
+     * @return InputStream，存储桶不存在时返回 null
+     */
+    public InputStream selectObjectContent(String bucketName, String objectName, String sqlExpression, InputSerialization inputSerialization, OutputSerialization outputSerialization, SelectListener listener) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("select", bucketName, objectName)) {
+            if (!bucketExists(bucketName)) {
+                return null;
+            }
+            SelectObjectContentArgs args = SelectObjectContentArgs.builder().bucket(bucketName).object(objectName)
+                    .sqlExpression(sqlExpression)
+                    .inputSerialization(inputSerialization)
+                    .outputSerialization(outputSerialization)
+                    .build();
+            SelectResponseStream stream = minioClientPool.execute(client -> client.selectObjectContent(args));
+            return minioInstrumentation.meterIn("select", ObjectSelect.monitor(stream, listener));
+        }
+    }
+
+    /**
+     * 在服务端执行 S3 Select 查询，按行返回结果记录，使用完毕后应关闭 Stream
+     *
+     * @param bucketName          存储桶名称
+     * @param objectName          存储桶里的对象名称
+     * @param sqlExpression       查询语句
+     * @param inputSerialization  对象格式（CSV、JSON 或 Parquet）
+     * @param outputSerialization 结果格式，应为 ObjectSelect.csvOutput 或 ObjectSelect.jsonOutput（每条记录一行）
+     * @param listener            进度和统计回调，可为 null
+     * @return Stream<String>，每个元素为一行；CSV 字段值本身含换行符时一条记录会被拆成多行，此时应使用 selectObjectContent 自行解析
+     */
+    public Stream<String> selectRecords(String bucketName, String objectName, String sqlExpression, InputSerialization inputSerialization, OutputSerialization outputSerialization, SelectListener listener) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        InputStream stream = selectObjectContent(bucketName, objectName, sqlExpression, inputSerialization, outputSerialization, listener);
+        return stream == null ? Stream.empty() : ObjectSelect.lines(stream);
+    }
+
+    /**
+     * 服务端复制对象，数据不经过客户端
+     *
+     * @param sourceBucket 源存储桶名称
+     * @param sourceObject 源对象名称
+     * @param bucketName   目标存储桶名称
+     * @param objectName   目标对象名称
+     * @param contentType  目标文件类型，为 null 时沿用源对象的元数据
+     * @return 源对象不存在时返回 false
+     */
+    public boolean copyObject(String sourceBucket, String sourceObject, String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("copy", bucketName, objectName)) {
+            if (!bucketExists(sourceBucket) || !bucketExists(bucketName)) {
+                return false;
+            }
+            try {
+                objectComposer.copy(sourceBucket, sourceObject, bucketName, objectName, contentType);
+            } catch (ErrorResponseException e) {
+                if (MinioExceptions.isNotFound(e)) {
+                    return false;
+                }
+                throw e;
+            }
+            objectStatCache.invalidate(bucketName, objectName);
+            return true;
+        }
+    }
+
+    /**
+     * 按顺序把同一存储桶下的多个对象合并为一个对象，在服务端完成；
+     * 只有小于 5 MiB 的源对象需要经过客户端拼接，源对象数量超过合并接口上限时自动分组合并
+     *
+     * @param bucketName    存储桶名称
+     * @param sourceObjects 源对象名称，按合并顺序
+     * @param objectName    目标对象名称
+     * @param contentType   目标文件类型，可为 null
+     * @return 目标对象大小，存储桶不存在时返回 -1
+     */
+    public long composeObject(String bucketName, List<String> sourceObjects, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("compose", bucketName, objectName)) {
+            if (!bucketExists(bucketName)) {
+                return -1;
+            }
+            long size = objectComposer.compose(bucketName, sourceObjects, bucketName, objectName, contentType);
+            objectStatCache.invalidate(bucketName, objectName);
+            return size;
+        }
+    }
+
+    /**
+     * 并行复制前缀下的所有对象到另一个前缀或存储桶，在服务端完成
+     *
+     * @param sourceBucket 源存储桶名称
+     * @param sourcePrefix 源目录，不以 / 结尾时补上 /
+     * @param bucketName   目标存储桶名称
+     * @param targetPrefix 目标目录，不以 / 结尾时补上 /，同一存储桶时不能位于源目录之下
+     * @return 复制的对象数，存储桶不存在时返回 -1
+     */
+    public long copyObjects(String sourceBucket, String sourcePrefix, String bucketName, String targetPrefix) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("copy", bucketName, targetPrefix)) {
+            if (!bucketExists(sourceBucket) || !bucketExists(bucketName)) {
+                return -1;
+            }
+            try {
+                return objectComposer.copyPrefix(sourceBucket, sourcePrefix, bucketName, targetPrefix);
+            } finally {
+                objectStatCache.invalidateBucket(bucketName);
+            }
+        }
+    }
+
+    /**
+     * 传输带宽调度，可在运行时调整各优先级的速率、查看传输字节数和等待时间
+     *
+     * @return TransferScheduler
+     */
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    /**
+     * 服务端复制与合并，可用于查看服务端复制和客户端暂存的字节数
+     *
+     * @return ObjectComposer
+     */
+    public ObjectComposer getObjectComposer() {
+        return objectComposer;
+    }
+
+    /**
+     * 把本地目录增量同步到存储桶前缀下：只上传新增或变化的文件，按本地清单判断，未变化的文件不发起请求
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delete     是否分批删除本地已不存在的文件对应的对象
+     * @return SyncResult，存储桶不存在时返回 null
+     */
+    public SyncResult syncUpload(String localDir, String bucketName, String prefix, boolean delete) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("syncUpload", bucketName, prefix)) {
+            if (!bucketExists(bucketName)) {
+                return null;
+            }
+            return directorySync.upload(localDir, bucketName, prefix, delete);
+        }
+    }
+
+    /**
+     * 把存储桶前缀下的对象增量同步到本地目录：只下载新增或 ETag 变化的对象
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param localDir   本地目录
+     * @param delete     是否删除服务端已不存在的对象对应的本地文件
+     * @return SyncResult，存储桶不存在时返回 null
+     */
+    public SyncResult syncDownload(String bucketName, String prefix, String localDir, boolean delete) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("syncDownload", bucketName, prefix)) {
+            if (!bucketExists(bucketName)) {
+                return null;
+            }
+            return directorySync.download(bucketName, prefix, localDir, delete);
+        }
     }
 
     /**
@@ -184,12 +642,30 @@ public class MinioClientUtils {
      * @param filename   文件名
      */
     public void putObject(String bucketName, MultipartFile multipartFile, String filename) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        PutObjectOptions putObjectOptions = new PutObjectOptions(multipartFile.getSize(), PutObjectOptions.MIN_MULTIPART_SIZE);
-        putObjectOptions.setContentType(multipartFile.getContentType());
-        minioClient.putObject(
-                PutObjectArgs.builder().bucket(bucketName).object(filename).stream(
-                        multipartFile.getInputStream(), multipartFile.getSize(), -1).contentType(multipartFile.getContentType())
-                        .build());
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("put", bucketName, filename)) {
+            String hash = null;
+            if (contentDedup.accepts(multipartFile.getSize())) {
+                // 先计算摘要，相同内容已上传过时服务端复制，不再传输数据
+                try (InputStream inputStream = multipartFile.getInputStream()) {
+                    hash = contentDedup.hash(inputStream);
+                }
+                if (contentDedup.copyIfPresent(hash, multipartFile.getSize(), bucketName, filename, multipartFile.getContentType())) {
+                    objectStatCache.invalidate(bucketName, filename);
+                    return;
+                }
+            }
+            PutObjectOptions putObjectOptions = new PutObjectOptions(multipartFile.getSize(), PutObjectOptions.MIN_MULTIPART_SIZE);
+            putObjectOptions.setContentType(multipartFile.getContentType());
+            PutObjectArgs args = PutObjectArgs.builder().bucket(bucketName).object(filename).stream(
+                    multipartFile.getInputStream(), multipartFile.getSize(), -1).contentType(multipartFile.getContentType())
+                    .build();
+            ObjectWriteResponse response = minioClientPool.execute(client -> client.putObject(args));
+            scope.bytesOut(multipartFile.getSize());
+            objectStatCache.invalidate(bucketName, filename);
+            if (hash != null) {
+                contentDedup.record(hash, bucketName, filename, response.etag());
+            }
+        }
     }
 
     /**
@@ -202,19 +678,27 @@ public class MinioClientUtils {
      * @return boolean
      */
     public boolean putObject(String bucketName, String objectName, InputStream inputStream,String contentType) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            minioClient.putObject(PutObjectArgs.builder().bucket(bucketName).object(objectName).stream(
-                    //不清楚文件的大小时，可以传-1，10485760。如果知道大小也可以传入size，partsize。
-                    inputStream,  -1, 10485760)
-                    .contentType(contentType)
-                    .build());
-            ObjectStat statObject = statObject(bucketName, objectName);
-            if (statObject != null && statObject.length() > 0) {
-                return true;
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("put", bucketName, objectName)) {
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                // 不清楚文件的大小，按分片读取：不足一个分片时直接上传，否则并行上传各分片
+                MessageDigest digest = minioConfig.getDedup().isEnabled() ? contentDedup.newDigest() : null;
+                AtomicLong uploaded = new AtomicLong();
+                InputStream stream = new MinioInstrumentation.CountingInputStream(
+                        digest != null ? new DigestInputStream(inputStream, digest) : inputStream, uploaded, null);
+                ObjectWriteResponse response = parallelUploader.uploadStream(bucketName, objectName, scope.meterOut(stream), contentType);
+                objectStatCache.invalidate(bucketName, objectName);
+                long length = uploaded.get();
+                if (length > 0) {
+                    // 边上传边计算的摘要加入去重索引，供之后相同内容的上传复用；ETag 取自上传响应，不再 stat
+                    if (digest != null && contentDedup.accepts(length)) {
+                        contentDedup.record(contentDedup.key(digest, length), bucketName, objectName, response.etag());
+                    }
+                    return true;
+                }
             }
+            return false;
         }
-        return false;
     }
 
     /**
@@ -225,18 +709,65 @@ public class MinioClientUtils {
      * @return InputStream
      */
     public InputStream getObject(String bucketName, String objectName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("get", bucketName, objectName)) {
+            // statObject 内部已检查存储桶是否存在
             ObjectStat statObject = statObject(bucketName, objectName);
             if (statObject != null && statObject.length() > 0) {
-                InputStream stream = minioClient.getObject( GetObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(objectName)
-                        .build());
-                return stream;
+                try {
+                    if (objectCache != null && objectCache.accepts(statObject)) {
+                        return objectCache.open(bucketName, objectName, statObject, 0, null);
+                    }
+                    if (minioConfig.getCoalesce().isEnabled() && statObject.length() <= minioConfig.getCoalesce().getSharedBufferThreshold()) {
+                        // 小对象：相同版本的并发读取共享一次下载
+                        ObjectStat stat = statObject;
+                        byte[] content = readFlight.run(bucketName + "/" + objectName + "/" + stat.etag(), () -> {
+                            byte[] bytes = readFully(bucketName, objectName, stat);
+                            scope.bytesIn(bytes.length);
+                            return bytes;
+                        });
+                        return new ByteArrayInputStream(content);
+                    }
+                    // 以 ETag 作为读取条件，缓存的元数据过期时服务端返回 412
+                    GetObjectArgs args = GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .extraHeaders(ReadConditions.ifMatch(statObject.etag()))
+                            .build();
+                    return minioInstrumentation.meterIn("get", hedgedReader.get("getObject", args));
+                } catch (ErrorResponseException e) {
+                    if (!MinioExceptions.isPreconditionFailed(e)) {
+                        throw e;
+                    }
+                    MinioInstrumentation.handled(MinioExceptions::isPreconditionFailed);
+                    objectStatCache.invalidate(bucketName, objectName);
+                }
+                statObject = statObject(bucketName, objectName);
+                if (statObject != null && statObject.length() > 0) {
+                    GetObjectArgs args = GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build();
+                    return minioInstrumentation.meterIn("get", hedgedReader.get("getObject", args));
+                }
             }
+            return null;
         }
-        return null;
+    }
+
+    /**
+     * 以 ETag 为条件读取整个对象到内存
+     */
+    private byte[] readFully(String bucketName, String objectName, ObjectStat statObject) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        GetObjectArgs args = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .extraHeaders(ReadConditions.ifMatch(statObject.etag()))
+                .build();
+        byte[] content = new byte[(int) statObject.length()];
+        try (InputStream in = hedgedReader.get("getObject", args)) {
+            new DataInputStream(in).readFully(content);
+        }
+        return content;
     }
 
     /**
@@ -249,24 +780,35 @@ public class MinioClientUtils {
      * @return InputStream
      */
     public InputStream getObject(String bucketName, String objectName, long offset, Long length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("getRange", bucketName, objectName)) {
             ObjectStat statObject = statObject(bucketName, objectName);
             if (statObject != null && statObject.length() > 0) {
-                InputStream stream = minioClient.getObject(  GetObjectArgs.builder()
+                if (objectCache != null && objectCache.accepts(statObject)) {
+                    try {
+                        return objectCache.open(bucketName, objectName, statObject, offset, length);
+                    } catch (ErrorResponseException e) {
+                        if (!MinioExceptions.isPreconditionFailed(e)) {
+                            throw e;
+                        }
+                        MinioInstrumentation.handled(MinioExceptions::isPreconditionFailed);
+                        // 缓存的元数据已过期，直接从 MinIO 读取
+                        objectStatCache.invalidate(bucketName, objectName);
+                    }
+                }
+                GetObjectArgs args = GetObjectArgs.builder()
                         .bucket(bucketName)
                         .object(objectName)
-                        .offset(1024L)
-                        .length(4096L)
-                        .build());
-                return stream;
+                        .offset(offset)
+                        .length(length)
+                        .build();
+                return minioInstrumentation.meterIn("getRange", hedgedReader.get("getRange", args));
             }
+            return null;
         }
-        return null;
     }
 
     /**
-     * 下载并将文件保存到本地
+     * 下载并将文件保存到本地，对象大小达到 spring.minio.download.parallel-threshold 时并行分段下载
      *
      * @param bucketName 存储桶名称
      * @param objectName 存储桶里的对象名称
@@ -274,19 +816,42 @@ public class MinioClientUtils {
      * @return boolean
      */
     public boolean downloadObject(String bucketName, String objectName, String fileName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.BULK);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("download", bucketName, objectName)) {
             ObjectStat statObject = statObject(bucketName, objectName);
             if (statObject != null && statObject.length() > 0) {
-                minioClient.downloadObject(DownloadObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(objectName)
-                        .filename(fileName)
-                        .build());
+                if (statObject.length() >= minioConfig.getDownload().getParallelThreshold()) {
+                    try {
+                        parallelDownloader.download(bucketName, objectName, statObject, fileName);
+                    } catch (ErrorResponseException e) {
+                        if (!MinioExceptions.isPreconditionFailed(e)) {
+                            throw e;
+                        }
+                        MinioInstrumentation.handled(MinioExceptions::isPreconditionFailed);
+                        // 缓存的元数据已过期，刷新后重新下载
+                        objectStatCache.invalidate(bucketName, objectName);
+                        statObject = statObject(bucketName, objectName);
+                        if (statObject == null || statObject.length() <= 0) {
+                            return false;
+                        }
+                        parallelDownloader.download(bucketName, objectName, statObject, fileName);
+                    }
+                } else {
+                    DownloadObjectArgs args = DownloadObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .filename(fileName)
+                            .build();
+                    minioClientPool.execute(client -> {
+                        client.downloadObject(args);
+                        return null;
+                    });
+                }
+                scope.bytesIn(statObject.length());
                 return true;
             }
+            return false;
         }
-        return false;
     }
 
     /**
@@ -296,12 +861,21 @@ public class MinioClientUtils {
      * @param objectName 存储桶里的对象名称
      */
     public boolean removeObject(String bucketName, String objectName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build());
-            return true;
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("delete", bucketName, objectName)) {
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                minioClientPool.execute(client -> {
+                    client.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build());
+                    return null;
+                });
+                objectStatCache.invalidate(bucketName, objectName);
+                if (objectCache != null) {
+                    objectCache.invalidate(bucketName, objectName);
+                }
+                return true;
+            }
+            return false;
         }
-        return false;
     }
 
     /**
@@ -317,16 +891,47 @@ public class MinioClientUtils {
      * objects.add(new DeleteObject("my-objectname3"));
      */
     public List<String> removeObjects(String bucketName, List<DeleteObject> objectNames) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
-        List<String> deleteErrorNames = new ArrayList<>();
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(objectNames).build());
-            for (Result<DeleteError> result : results) {
-                DeleteError error = result.get();
-                deleteErrorNames.add(error.objectName());
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("delete", bucketName, null)) {
+            List<String> deleteErrorNames = new ArrayList<>();
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                Iterable<Result<DeleteError>> results = minioClientPool.client().removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(objectNames).build());
+                for (Result<DeleteError> result : results) {
+                    DeleteError error = result.get();
+                    deleteErrorNames.add(error.objectName());
+                }
+                objectStatCache.invalidateBucket(bucketName);
+            }
+            return deleteErrorNames;
+        }
+    }
+
+    /**
+     * 删除指定前缀下的所有对象，边列出边分批删除，内存占用与对象总数无关
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，不能为空
+     * @param dryRun     为 true 时只统计将要删除的对象数，不删除
+     * @param listener   进度回调，可为 null
+     * @return PrefixDeleteResult，存储桶不存在时返回 null
+     */
+    public PrefixDeleteResult removeObjectsByPrefix(String bucketName, String prefix, boolean dryRun, PrefixDeleteListener listener) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("delete", bucketName, prefix)) {
+            if (StringUtils.isEmpty(prefix)) {
+                throw new IllegalArgumentException("prefix must not be empty");
             }
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                try {
+                    return prefixDeleter.deleteByPrefix(bucketName, prefix, dryRun, listener);
+                } finally {
+                    if (!dryRun) {
+                        objectStatCache.invalidateBucket(bucketName);
+                    }
+                }
+            }
+            return null;
         }
-        return deleteErrorNames;
     }
 
     /**
@@ -336,31 +941,17 @@ public class MinioClientUtils {
      * @param bucketName 存储桶名称
      * @param objectName 存储桶里的对象名称
      * @param expires    失效时间（以秒为单位），默认是7天，不得大于七天
-     * @return
+     * @return String
      */
     public String getPresignedObjectUrl(String bucketName, String objectName, Integer expires) throws InvalidExpiresRangeException, IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException {
-        boolean flag = bucketExists(bucketName);
-        String url = "";
-        if (flag) {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("presign", bucketName, objectName)) {
+            // 预签名为本地计算，不检查存储桶是否存在；存储桶不存在时访问 URL 返回 404
             if (expires < 1 || expires > DEFAULT_EXPIRY_TIME) {
                 throw new InvalidExpiresRangeException(expires,
                         "expires must be in range of 1 to " + DEFAULT_EXPIRY_TIME);
             }
-            try {
-                url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                        .method(Method.GET)
-                        .bucket(bucketName)
-                        .object(objectName)
-                        .expiry(expires)//动态参数
-                        //                       .expiry(24 * 60 * 60)//用秒来计算一天时间有效期
-//                        .expiry(1, TimeUnit.DAYS)//按天传参
-//                        .expiry(1, TimeUnit.HOURS)//按小时传参数
-                        .build());
-            } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidBucketNameException | InvalidExpiresRangeException | InvalidKeyException | InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException | XmlParserException e) {
-                e.printStackTrace();
-            }
+            return presigner.presign(Method.GET, bucketName, objectName, expires);
         }
-        return url;
     }
 
     /**
@@ -369,54 +960,36 @@ public class MinioClientUtils {
      *
      * @param bucketName 存储桶名称
      * @param objectName 存储桶里的对象名称
-     * @param expires    失效时间（以秒为单位），默认是7天，不得大于七天
+     * @param expires    失效时间，按 timeUnit 换算后不得大于七天
      * @return String
      */
-    public String presignedPutObject(String bucketName, String objectName, Integer expires, TimeUnit timeUnit) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException {
-        boolean flag = bucketExists(bucketName);
-        String url = "";
-        if (flag) {
-            if (expires < 1 || expires > DEFAULT_EXPIRY_TIME) {
-                try {
-                    throw new InvalidExpiresRangeException(expires,
-                            "expires must be in range of 1 to " + DEFAULT_EXPIRY_TIME);
-                } catch (InvalidExpiresRangeException e) {
-                    e.printStackTrace();
-                }
+    public String presignedPutObject(String bucketName, String objectName, Integer expires, TimeUnit timeUnit) throws InvalidExpiresRangeException, IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("presign", bucketName, objectName)) {
+            long seconds = timeUnit.toSeconds(expires);
+            if (seconds < 1 || seconds > DEFAULT_EXPIRY_TIME) {
+                throw new InvalidExpiresRangeException((int) Math.min(seconds, Integer.MAX_VALUE),
+                        "expires must be in range of 1 to " + DEFAULT_EXPIRY_TIME);
             }
-            try {
-                url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                        .method(Method.PUT)
-                        .bucket(bucketName)
-                        .object(objectName)
-//                        .expiry(expires)//动态参数
-                        //                       .expiry(24 * 60 * 60)//用秒来计算一天时间有效期
-                        .expiry(expires, timeUnit)//按天传参
-//                        .expiry(1, TimeUnit.HOURS)//按小时传参数
-                        .build());
-            } catch (ErrorResponseException | InsufficientDataException e) {
-                e.printStackTrace();
-            } catch (InternalException e) {
-                log.error("InternalException",e);
-            } catch (InvalidBucketNameException e) {
-                log.error("InvalidBucketNameException",e);
-            } catch (InvalidExpiresRangeException e) {
-                log.error("InvalidExpiresRangeException",e);
-            } catch (InvalidKeyException e) {
-                log.error("InvalidKeyException",e);
-            } catch (InvalidResponseException e) {
-                log.error("InvalidResponseException",e);
-            } catch (IOException e) {
-                log.error("IOException",e);
-            } catch (NoSuchAlgorithmException e) {
-                log.error("NoSuchAlgorithmException",e);
-            } catch (ServerException e) {
-                log.error("ServerException",e);
-            } catch (XmlParserException e) {
-                log.error("XmlParserException",e);
+            return presigner.presign(Method.PUT, bucketName, objectName, (int) seconds);
+        }
+    }
+
+    /**
+     * 批量生成 HTTP GET 请求用的presigned URL，本地计算，不发起网络请求
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 存储桶里的对象名称
+     * @param expires     失效时间（以秒为单位），不得大于七天
+     * @return 对象名称到 URL 的映射，保持 objectNames 的顺序
+     */
+    public Map<String, String> presignAll(String bucketName, Collection<String> objectNames, Integer expires) throws InvalidExpiresRangeException {
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("presign", bucketName, null)) {
+            if (expires < 1 || expires > DEFAULT_EXPIRY_TIME) {
+                throw new InvalidExpiresRangeException(expires,
+                        "expires must be in range of 1 to " + DEFAULT_EXPIRY_TIME);
             }
+            return presigner.presignAll(bucketName, objectNames, expires);
         }
-        return url;
     }
 
     /**
@@ -427,36 +1000,44 @@ public class MinioClientUtils {
      * @return
      */
     public ObjectStat statObject(String bucketName, String objectName) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            ObjectStat statObject = null;
-            try {
-                statObject = minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
-            } catch (ErrorResponseException e) {
-                log.error("ErrorResponseException",e);
-            } catch (InsufficientDataException e) {
-                log.error("ErrorResponseException",e);
-                e.printStackTrace();
-            } catch (InternalException e) {
-                log.error("InternalException",e);
-            } catch (InvalidBucketNameException e) {
-                log.error("InvalidBucketNameException",e);
-            } catch (InvalidKeyException e) {
-                log.error("InvalidKeyException",e);
-            } catch (InvalidResponseException e) {
-                log.error("InvalidResponseException",e);
-            } catch (IOException e) {
-                log.error("IOException",e);
-            } catch (NoSuchAlgorithmException e) {
-                log.error("NoSuchAlgorithmException",e);
-            } catch (ServerException e) {
-                log.error("ServerException",e);
-            } catch (XmlParserException e) {
-                log.error("XmlParserException",e);
+        try (MinioInstrumentation.Scope scope = minioInstrumentation.start("stat", bucketName, objectName)) {
+            boolean flag = bucketExists(bucketName);
+            if (flag) {
+                ObjectStat statObject = objectStatCache.get(bucketName, objectName);
+                if (statObject != null) {
+                    return statObject;
+                }
+                try {
+                    statObject = statFlight.run(bucketName + "/" + objectName, () -> {
+                        ObjectStat stat = minioClientPool.execute(client -> client.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build()));
+                        objectStatCache.put(bucketName, objectName, stat);
+                        return stat;
+                    });
+                } catch (ErrorResponseException e) {
+                    log.error("ErrorResponseException",e);
+                } catch (InsufficientDataException e) {
+                    log.error("InsufficientDataException",e);
+                } catch (InternalException e) {
+                    log.error("InternalException",e);
+                } catch (InvalidBucketNameException e) {
+                    log.error("InvalidBucketNameException",e);
+                } catch (InvalidKeyException e) {
+                    log.error("InvalidKeyException",e);
+                } catch (InvalidResponseException e) {
+                    log.error("InvalidResponseException",e);
+                } catch (IOException e) {
+                    log.error("IOException",e);
+                } catch (NoSuchAlgorithmException e) {
+                    log.error("NoSuchAlgorithmException",e);
+                } catch (ServerException e) {
+                    log.error("ServerException",e);
+                } catch (XmlParserException e) {
+                    log.error("XmlParserException",e);
+                }
+                return statObject;
             }
-            return statObject;
+            return null;
         }
-        return null;
     }
 
     /**
@@ -471,7 +1052,7 @@ public class MinioClientUtils {
         String url = "";
         if (flag) {
             try {
-                url = minioClient.getObjectUrl(bucketName, objectName);
+                url = minioClientPool.client().getObjectUrl(bucketName, objectName);
             } catch (ErrorResponseException e) {
                 log.error("XmlParserException",e);
             } catch (InsufficientDataException e) {
@@ -500,31 +1081,154 @@ public class MinioClientUtils {
 
 
     public void downloadFile(String bucketName, String fileName, String originalName, HttpServletResponse response) {
-        try {
+        downloadFile(bucketName, fileName, originalName, null, response);
+    }
+
+    /**
+     * 文件下载，支持 Range / If-Range / If-None-Match
+     * 带 Range 时只从 MinIO 读取请求的字节区间并响应 206
+     *
+     * @param bucketName   存储桶名称
+     * @param fileName     存储桶里的对象名称
+     * @param originalName 原始文件名
+     * @param request      请求，为 null 时按完整内容响应
+     * @param response     响应
+     */
+    public void downloadFile(String bucketName, String fileName, String originalName, HttpServletRequest request, HttpServletResponse response) {
+        try (TransferScheduler.Mark mark = TransferScheduler.useDefault(TransferClass.INTERACTIVE);
+             MinioInstrumentation.Scope scope = minioInstrumentation.start("downloadFile", bucketName, fileName)) {
+            try {
+                ObjectStat statObject = statObject(bucketName, fileName);
+                if (statObject == null) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                InputStream file = null;
+                HttpRange range = null;
+                for (int attempt = 0; file == null; attempt++) {
+                    String etag = "\"" + statObject.etag() + "\"";
+                    long lastModified = statObject.createdTime().toInstant().toEpochMilli();
+                    response.setHeader("Accept-Ranges", "bytes");
+                    response.setHeader("ETag", etag);
+                    response.setDateHeader("Last-Modified", lastModified);
+                    if (request != null && etagMatches(request.getHeader("If-None-Match"), etag)) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
+                    }
+                    range = null;
+                    if (request != null && ifRangeMatches(request, etag, lastModified)) {
+                        try {
+                            range = HttpRange.parse(request.getHeader("Range"), statObject.length());
+                        } catch (IllegalArgumentException e) {
+                            response.setHeader("Content-Range", "bytes */" + statObject.length());
+                            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                            return;
+                        }
+                    }
+                    if (request != null && "HEAD".equalsIgnoreCase(request.getMethod())) {
+                        break;
+                    }
+                    GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(fileName)
+                            .extraHeaders(ReadConditions.ifMatch(statObject.etag()));
+                    if (range != null) {
+                        builder.offset(range.start).length(range.length());
+                    }
+                    try {
+                        if (objectCache != null && objectCache.accepts(statObject)) {
+                            file = range != null
+                                    ? objectCache.open(bucketName, fileName, statObject, range.start, range.length())
+                                    : objectCache.open(bucketName, fileName, statObject, 0, null);
+                        } else {
+                            GetObjectArgs args = builder.build();
+                            file = scope.meterIn(hedgedReader.get(range != null ? "getRange" : "getObject", args));
+                        }
+                    } catch (ErrorResponseException e) {
+                        if (attempt > 0 || !MinioExceptions.isPreconditionFailed(e)) {
+                            throw e;
+                        }
+                        MinioInstrumentation.handled(MinioExceptions::isPreconditionFailed);
+                        // 缓存的元数据已过期，刷新后重试
+                        objectStatCache.invalidate(bucketName, fileName);
+                        statObject = statObject(bucketName, fileName);
+                        if (statObject == null) {
+                            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                            return;
+                        }
+                    }
+                }
+                String filename = StringUtils.isNotBlank(originalName)
+                        ? originalName
+                        : new String(fileName.getBytes("ISO8859-1"), StandardCharsets.UTF_8);
+                response.setHeader("Content-Disposition", "attachment;filename=" + filename);
+                if (StringUtils.isNotEmpty(statObject.contentType())) {
+                    response.setContentType(statObject.contentType());
+                }
+                if (range != null) {
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", range.contentRange(statObject.length()));
+                    response.setHeader("Content-Length", String.valueOf(range.length()));
+                } else {
+                    response.setHeader("Content-Length", String.valueOf(statObject.length()));
+                }
+                if (file == null) {
+                    return;
+                }
+                try (InputStream in = file) {
+                    ServletOutputStream servletOutputStream = response.getOutputStream();
+                    byte[] buffer = COPY_BUFFER.get();
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        servletOutputStream.write(buffer, 0, len);
+                    }
+                    servletOutputStream.flush();
+                    servletOutputStream.close();
+                }
+            } catch (ErrorResponseException e) {
+                log.error("ErrorResponseException",e);
+            } catch (Exception e) {
+                log.error("Exception",e);
+            }
+        }
+    }
 
-            InputStream file = minioClient.getObject(GetObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(fileName)
-                    .build());
-            String filename = new String(fileName.getBytes("ISO8859-1"), StandardCharsets.UTF_8);
-            if (StringUtils.isNotEmpty(originalName)) {
-                fileName = originalName;
-            }
-            response.setHeader("Content-Disposition", "attachment;filename=" + filename);
-            ServletOutputStream servletOutputStream = response.getOutputStream();
-            int len;
-            byte[] buffer = new byte[1024];
-            while ((len = file.read(buffer)) > 0) {
-                servletOutputStream.write(buffer, 0, len);
-            }
-            servletOutputStream.flush();
-            file.close();
-            servletOutputStream.close();
-        } catch (ErrorResponseException e) {
-            log.error("ErrorResponseException",e);
-        } catch (Exception e) {
-            log.error("Exception",e);
+    /**
+     * If-None-Match 是否与 ETag 匹配（弱比较）
+     */
+    private static boolean etagMatches(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
         }
+        return false;
     }
-}
 
+    /**
+     * 无 If-Range 或 If-Range 与当前对象一致时 Range 才生效
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range 要求强比较
+            return etag.equals(ifRange);
+        }
+        try {
+            long since = request.getDateHeader("If-Range");
+            return since >= 0 && lastModified / 1000 <= since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.light.minio.util;
+
+import io.minio.ErrorCode;
+import io.minio.errors.*;
+
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * MinIO 异常处理
+ */
+final class MinioExceptions {
+
+    /**
+     * 对象或存储桶不存在的错误码
+     */
+    private static final Set<ErrorCode> NOT_FOUND_CODES = EnumSet.of(
+            ErrorCode.NO_SUCH_KEY, ErrorCode.NO_SUCH_OBJECT, ErrorCode.NO_SUCH_BUCKET, ErrorCode.RESOURCE_NOT_FOUND);
+
+    /**
+     * 服务端繁忙或临时故障的错误码
+     */
+    private static final Set<ErrorCode> RETRYABLE_CODES = EnumSet.of(
+            ErrorCode.INTERNAL_ERROR, ErrorCode.SLOW_DOWN, ErrorCode.SERVICE_UNAVAILABLE, ErrorCode.REQUEST_TIMEOUT);
+
+    private MinioExceptions() {
+    }
+
+    /**
+     * 是否为条件读取（If-Match）失败
+     */
+    static boolean isPreconditionFailed(Throwable t) {
+        if (!(t instanceof ErrorResponseException)) {
+            return false;
+        }
+        ErrorResponseException e = (ErrorResponseException) t;
+        return e.errorResponse() != null && e.errorResponse().errorCode() == ErrorCode.PRECONDITION_FAILED;
+    }
+
+    /**
+     * 是否为条件读取（If-None-Match）返回 304
+     * 7.1.0 的 ErrorCode 中没有 NotModified，GET 收到无响应体的 304 时 SDK 抛出 InvalidResponseException，
+     * 只能用于判断带 If-None-Match 的 GET
+     */
+    static boolean isNotModified(Throwable t) {
+        return t instanceof InvalidResponseException;
+    }
+
+    /**
+     * 是否为对象或存储桶不存在
+     */
+    static boolean isNotFound(Throwable t) {
+        if (!(t instanceof ErrorResponseException)) {
+            return false;
+        }
+        ErrorResponseException e = (ErrorResponseException) t;
+        return e.errorResponse() != null && NOT_FOUND_CODES.contains(e.errorResponse().errorCode());
+    }
+
+    /**
+     * 是否为分片上传不存在（已完成、已放弃或已过期）
+     */
+    static boolean isNoSuchUpload(Throwable t) {
+        if (!(t instanceof ErrorResponseException)) {
+            return false;
+        }
+        ErrorResponseException e = (ErrorResponseException) t;
+        return e.errorResponse() != null && e.errorResponse().errorCode() == ErrorCode.NO_SUCH_UPLOAD;
+    }
+
+    /**
+     * 是否为与节点通信失败的网络错误：连接被拒绝或中断、超时、域名解析失败、TLS 错误、响应提前结束；
+     * 本地文件读写等其它 IOException 不算
+     */
+    static boolean isTransportFailure(Throwable t) {
+        if (t instanceof SocketException || t instanceof SocketTimeoutException || t instanceof UnknownHostException
+                || t instanceof SSLException || t instanceof ProtocolException) {
+            return true;
+        }
+        // OkHttp 读取响应时连接被关闭：IOException("unexpected end of stream on ...", EOFException)
+        return t instanceof IOException && !(t instanceof EOFException) && t.getCause() instanceof EOFException;
+    }
+
+    /**
+     * 是否为可以重试的临时错误：网络错误（线程中断除外）、服务端 5xx 和繁忙类错误码
+     */
+    static boolean isRetryable(Throwable t) {
+        while ((t instanceof ExecutionException || t instanceof CompletionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof SocketTimeoutException) {
+            return true;
+        }
+        if (t instanceof InterruptedIOException) {
+            return false;
+        }
+        if (t instanceof IOException || t instanceof ServerException) {
+            return true;
+        }
+        if (t instanceof ErrorResponseException) {
+            ErrorResponseException e = (ErrorResponseException) t;
+            return e.errorResponse() != null && RETRYABLE_CODES.contains(e.errorResponse().errorCode());
+        }
+        return false;
+    }
+
+    /**
+     * 将线程池任务抛出的异常还原为 MinioClient 声明的受检异常，其它异常包装为 IOException
+     *
+     * @param t 任务异常
+     */
+    static void rethrow(Throwable t) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        while ((t instanceof ExecutionException || t instanceof CompletionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof InvalidKeyException) {
+            throw (InvalidKeyException) t;
+        } else if (t instanceof InvalidResponseException) {
+            throw (InvalidResponseException) t;
+        } else if (t instanceof InsufficientDataException) {
+            throw (InsufficientDataException) t;
+        } else if (t instanceof NoSuchAlgorithmException) {
+            throw (NoSuchAlgorithmException) t;
+        } else if (t instanceof ServerException) {
+            throw (ServerException) t;
+        } else if (t instanceof InternalException) {
+            throw (InternalException) t;
+        } else if (t instanceof XmlParserException) {
+            throw (XmlParserException) t;
+        } else if (t instanceof InvalidBucketNameException) {
+            throw (InvalidBucketNameException) t;
+        } else if (t instanceof ErrorResponseException) {
+            throw (ErrorResponseException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IOException(t);
+    }
+}
@@ -0,0 +1,258 @@
+package com.light.minio.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 逻辑调用的指标与追踪
+ * 每次逻辑调用开启一个 Scope，Scope 绑定在当前线程上，MinioClientPool 发出的每个请求计入当前 Scope 的请求数，
+ * 请求失败按异常类型计数。嵌套调用（例如 getObject 内部的 statObject）结束时请求数累加到外层。
+ * 请求的错误在 Scope 结束时才记录，调用方当作正常结果处理的错误（304、412 后刷新重试等）通过 handled 排除
+ */
+public class MinioInstrumentation {
+
+    public static final MinioInstrumentation NOOP = new MinioInstrumentation(MinioMetrics.NOOP, MinioTracer.NOOP);
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final MinioMetrics metrics;
+
+    private final MinioTracer tracer;
+
+    public MinioInstrumentation(MinioMetrics metrics, MinioTracer tracer) {
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
+    /**
+     * 开始一次逻辑调用，应在 try-with-resources 中使用
+     *
+     * @param operation  操作名称
+     * @param bucketName 存储桶名称，可为 null
+     * @param objectName 对象名称或前缀，可为 null
+     * @return Scope
+     */
+    public Scope start(String operation, String bucketName, String objectName) {
+        Scope scope = new Scope(operation, tracer.start(operation, bucketName, objectName), CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 包装返回给调用方的、从 MinIO 读取的流，流关闭时按已读取的字节数记录 bytesIn
+     */
+    public InputStream meterIn(String operation, InputStream stream) {
+        if (stream == null) {
+            return null;
+        }
+        AtomicLong bytes = new AtomicLong();
+        return new CountingInputStream(stream, bytes, () -> metrics.recordBytesIn(operation, bytes.get()));
+    }
+
+    public MinioMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 让任务在执行线程上沿用提交线程当前的 Scope，用于线程池中发出的请求
+     */
+    static <T> Callable<T> propagate(Callable<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * MinioClientPool 每发出一个请求调用一次
+     */
+    static void onRequest() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.roundTrips.incrementAndGet();
+        }
+    }
+
+    /**
+     * MinioClientPool 的请求失败时调用，错误在 Scope 结束时记录
+     */
+    static void onError(Throwable error) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.pending(error);
+        }
+    }
+
+    /**
+     * 当前 Scope 中尚未记录的、满足 expected 的请求错误已被调用方当作正常结果处理，不计为失败
+     *
+     * @param expected 被处理的错误，例如 MinioExceptions::isPreconditionFailed
+     */
+    static void handled(Predicate<Throwable> expected) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.handled(expected);
+        }
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final String operation;
+
+        private final MinioTracer.Span span;
+
+        private final Scope parent;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicInteger roundTrips = new AtomicInteger();
+
+        private final AtomicLong bytesIn = new AtomicLong();
+
+        private final AtomicLong bytesOut = new AtomicLong();
+
+        private final List<Throwable> pending = new ArrayList<>();
+
+        private volatile boolean failed;
+
+        private Scope(String operation, MinioTracer.Span span, Scope parent) {
+            this.operation = operation;
+            this.span = span;
+            this.parent = parent;
+        }
+
+        public void bytesIn(long bytes) {
+            bytesIn.addAndGet(bytes);
+        }
+
+        public void bytesOut(long bytes) {
+            bytesOut.addAndGet(bytes);
+        }
+
+        /**
+         * 包装在本次调用内读完的 MinIO 响应流，读取的字节数计入本次调用的 bytesIn
+         */
+        public InputStream meterIn(InputStream stream) {
+            return new CountingInputStream(stream, bytesIn, null);
+        }
+
+        /**
+         * 包装上传的数据源流，读取的字节数计入本次调用的 bytesOut
+         */
+        public InputStream meterOut(InputStream stream) {
+            return new CountingInputStream(stream, bytesOut, null);
+        }
+
+        /**
+         * 记录失败，调用方捕获并吞掉的异常也应调用
+         */
+        public void error(Throwable error) {
+            failed = true;
+            metrics.recordError(operation, error);
+            span.error(error);
+        }
+
+        private void pending(Throwable error) {
+            synchronized (pending) {
+                pending.add(error);
+            }
+        }
+
+        private void handled(Predicate<Throwable> expected) {
+            synchronized (pending) {
+                pending.removeIf(expected);
+            }
+        }
+
+        @Override
+        public void close() {
+            CURRENT.set(parent);
+            synchronized (pending) {
+                for (Throwable error : pending) {
+                    error(error);
+                }
+                pending.clear();
+            }
+            int count = roundTrips.get();
+            if (parent != null) {
+                parent.roundTrips.addAndGet(count);
+            }
+            metrics.recordLatency(operation, System.nanoTime() - start, !failed);
+            metrics.recordRoundTrips(operation, count);
+            if (bytesIn.get() > 0) {
+                metrics.recordBytesIn(operation, bytesIn.get());
+            }
+            if (bytesOut.get() > 0) {
+                metrics.recordBytesOut(operation, bytesOut.get());
+            }
+            span.tag("minio.round_trips", String.valueOf(count));
+            span.end();
+        }
+    }
+
+    /**
+     * 统计读取字节数的流，关闭时执行一次 onClose
+     */
+    static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong counter;
+
+        private final Runnable onClose;
+
+        private boolean closed;
+
+        CountingInputStream(InputStream stream, AtomicLong counter, Runnable onClose) {
+            super(stream);
+            this.counter = counter;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    if (onClose != null) {
+                        onClose.run();
+                    }
+                }
+            }
+        }
+    }
+}
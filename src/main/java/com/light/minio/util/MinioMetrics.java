@@ -0,0 +1,54 @@
+package com.light.minio.util;
+
+/**
+ * MinIO 操作指标，实现该接口并注册为 Spring Bean 即可替换默认实现
+ * 操作名称：bucketExists、stat、get、getRange、getPart、put、putPart、download、downloadFile、list、delete、presign
+ */
+public interface MinioMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    MinioMetrics NOOP = new MinioMetrics() {
+    };
+
+    /**
+     * 一次逻辑调用的耗时
+     *
+     * @param operation 操作名称
+     * @param nanos     耗时（纳秒）
+     * @param success   是否成功
+     */
+    default void recordLatency(String operation, long nanos, boolean success) {
+    }
+
+    /**
+     * 一次逻辑调用向 MinIO 发出的请求数
+     *
+     * @param operation  操作名称
+     * @param roundTrips 请求数，缓存命中时为 0
+     */
+    default void recordRoundTrips(String operation, int roundTrips) {
+    }
+
+    /**
+     * 从 MinIO 读取的字节数
+     */
+    default void recordBytesIn(String operation, long bytes) {
+    }
+
+    /**
+     * 写入 MinIO 的字节数
+     */
+    default void recordBytesOut(String operation, long bytes) {
+    }
+
+    /**
+     * 一次请求失败，包括被 MinioClientUtils 捕获后只记录日志的异常
+     *
+     * @param operation 操作名称
+     * @param error     异常
+     */
+    default void recordError(String operation, Throwable error) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.light.minio.util;
+
+/**
+ * 在 Iterator / Stream 等无法抛出受检异常的场景中包装 MinIO 异常
+ */
+public class MinioRuntimeException extends RuntimeException {
+
+    public MinioRuntimeException(Throwable cause) {
+        super(cause);
+    }
+
+    public MinioRuntimeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
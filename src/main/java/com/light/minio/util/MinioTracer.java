@@ -0,0 +1,37 @@
+package com.light.minio.util;
+
+/**
+ * 链路追踪，实现该接口并注册为 Spring Bean 即可为每次逻辑调用创建 Span（例如桥接到 OpenTelemetry、Brave）
+ */
+public interface MinioTracer {
+
+    /**
+     * 不创建 Span
+     */
+    MinioTracer NOOP = (operation, bucketName, objectName) -> Span.NOOP;
+
+    /**
+     * 开始一个 Span，在调用线程上结束
+     *
+     * @param operation  操作名称
+     * @param bucketName 存储桶名称，可为 null
+     * @param objectName 对象名称或前缀，可为 null
+     * @return Span
+     */
+    Span start(String operation, String bucketName, String objectName);
+
+    interface Span {
+
+        Span NOOP = new Span() {
+        };
+
+        default void tag(String key, String value) {
+        }
+
+        default void error(Throwable error) {
+        }
+
+        default void end() {
+        }
+    }
+}
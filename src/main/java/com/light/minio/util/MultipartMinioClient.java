@@ -0,0 +1,115 @@
+package com.light.minio.util;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.errors.*;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 公开分片上传各步骤的 MinioClient
+ * MinioClient 的 createMultipartUpload/uploadPart/completeMultipartUpload 等为 protected，
+ * 并行分片上传需要自行调度各分片，分片在完成前只存在于服务端的未完成上传中，不会出现在对象列表里
+ */
+public class MultipartMinioClient extends MinioClient {
+
+    /**
+     * @param url        节点地址
+     * @param accessKey  access key
+     * @param secretKey  secret key
+     * @param httpClient HTTP 客户端
+     */
+    @SuppressWarnings("deprecation")
+    public MultipartMinioClient(HttpUrl url, String accessKey, String secretKey, OkHttpClient httpClient) throws InvalidEndpointException, InvalidPortException {
+        super(url.toString(), url.port(), accessKey, secretKey, null, url.isHttps(), httpClient);
+    }
+
+    /**
+     * 池中的客户端都由 MinioConfig 构建为 MultipartMinioClient
+     */
+    static MultipartMinioClient of(MinioClient client) {
+        if (!(client instanceof MultipartMinioClient)) {
+            throw new IllegalStateException("parallel upload requires clients built as " + MultipartMinioClient.class.getSimpleName());
+        }
+        return (MultipartMinioClient) client;
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @param contentType 文件类型，可为 null
+     * @return uploadId
+     */
+    String initiate(String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUpload(bucketName, null, objectName, headers, null);
+    }
+
+    /**
+     * 上传文件中的一个分片，file 需已定位到分片起始位置，每个分片使用独立的 RandomAccessFile
+     *
+     * @return 分片 ETag
+     */
+    String uploadPart(String bucketName, String objectName, String uploadId, int partNumber, RandomAccessFile file, int length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return uploadPart(bucketName, objectName, file, length, uploadId, partNumber, null);
+    }
+
+    /**
+     * 上传内存中的一个分片，直接以 data 作为请求体，SDK 不再复制
+     *
+     * @param data   分片数据，从下标 0 开始
+     * @param length 分片大小
+     * @return 分片 ETag
+     */
+    String uploadPart(String bucketName, String objectName, String uploadId, int partNumber, byte[] data, int length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return uploadPart(bucketName, objectName, data, length, uploadId, partNumber, null);
+    }
+
+    /**
+     * 以一次 PUT 上传内存中的对象，直接以 data 作为请求体，SDK 不再复制
+     *
+     * @param data        对象数据，从下标 0 开始
+     * @param length      对象大小
+     * @param contentType 文件类型，可为 null
+     */
+    ObjectWriteResponse put(String bucketName, String objectName, byte[] data, int length, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType != null ? contentType : "application/octet-stream");
+        return putObject(bucketName, null, objectName, data, length, headers, null);
+    }
+
+    /**
+     * 按分片号顺序合并分片，生成目标对象
+     */
+    ObjectWriteResponse complete(String bucketName, String objectName, String uploadId, Part[] parts) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return completeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+    }
+
+    /**
+     * 放弃分片上传，服务端删除已上传的分片
+     */
+    void abort(String bucketName, String objectName, String uploadId) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        abortMultipartUpload(bucketName, objectName, uploadId);
+    }
+
+    /**
+     * 列出分片上传中已上传的分片，每次最多 1000 个
+     *
+     * @param partNumberMarker 从该分片号之后开始，首次传 null
+     */
+    ListPartsResult parts(String bucketName, String objectName, String uploadId, Integer partNumberMarker) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return listParts(bucketName, objectName, 1000, partNumberMarker, uploadId);
+    }
+}
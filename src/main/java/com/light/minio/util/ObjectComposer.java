@@ -0,0 +1,519 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.*;
+import io.minio.errors.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端复制与合并
+ * 合并时源对象按字节顺序切分为若干段：不小于 5 MiB 的部分以服务端分片复制引用，数据不经过客户端；
+ * 小于 5 MiB 的源对象（合并接口要求除最后一段外每段至少 5 MiB）连同补足到 5 MiB 所需的后续字节在客户端拼接后暂存为临时对象。
+ * 段数超过 maxComposeSources 时先分组合并为中间对象，再合并中间对象。
+ * 暂存对象和中间对象位于 partPrefix 下，合并结束后删除；进程中断留下的由 {@link #removeStaleTemporary(String)} 清理。
+ */
+@Slf4j
+public class ObjectComposer {
+
+    private static final long MIB = 1024L * 1024;
+
+    /**
+     * 合并源对象（最后一个除外）的最小大小
+     */
+    private static final long MIN_PART_SIZE = 5 * MIB;
+
+    /**
+     * 单个分片复制的最大大小，更大的源对象在服务端占用多个分片
+     */
+    private static final long MAX_PART_SIZE = 5 * 1024 * MIB;
+
+    /**
+     * 合并接口允许的最大分片数
+     */
+    private static final int MAX_COMPOSE_SOURCES = 10000;
+
+    private final MinioClientPool minioClientPool;
+
+    private final ObjectListing objectListing;
+
+    private final MinioConfig.Copy copy;
+
+    private final String partPrefix;
+
+    private final long staleTtl;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong objectsCopied = new AtomicLong();
+
+    private final AtomicLong objectsComposed = new AtomicLong();
+
+    private final AtomicLong bytesServerSide = new AtomicLong();
+
+    private final AtomicLong bytesStaged = new AtomicLong();
+
+    public ObjectComposer(MinioClientPool minioClientPool, ObjectListing objectListing, MinioConfig.Copy copy, MinioConfig.Upload upload) {
+        if (copy.getMaxComposeSources() < 2 || copy.getMaxComposeSources() > MAX_COMPOSE_SOURCES) {
+            throw new IllegalArgumentException("spring.minio.copy.max-compose-sources must be between 2 and " + MAX_COMPOSE_SOURCES + ": " + copy.getMaxComposeSources());
+        }
+        if (upload.getPartPrefix() == null || upload.getPartPrefix().isEmpty()) {
+            throw new IllegalArgumentException("spring.minio.upload.part-prefix must not be empty");
+        }
+        this.minioClientPool = minioClientPool;
+        this.objectListing = objectListing;
+        this.copy = copy;
+        this.partPrefix = upload.getPartPrefix();
+        this.staleTtl = upload.getStaleUploadTtl();
+        this.executor = Executors.newFixedThreadPool(Math.max(copy.getThreads(), 1), new NamedThreadFactory("minio-copy"));
+    }
+
+    /**
+     * 服务端复制对象
+     *
+     * @param sourceBucket 源存储桶名称
+     * @param sourceObject 源对象名称
+     * @param bucketName   目标存储桶名称
+     * @param objectName   目标对象名称
+     * @param contentType  目标文件类型，为 null 时沿用源对象的元数据
+     */
+    public void copy(String sourceBucket, String sourceObject, String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        CopyObjectArgs.Builder builder = CopyObjectArgs.builder().bucket(bucketName).object(objectName)
+                .source(CopySource.builder().bucket(sourceBucket).object(sourceObject).build());
+        if (contentType != null) {
+            builder.headers(Collections.singletonMap("Content-Type", contentType)).metadataDirective(Directive.REPLACE);
+        }
+        CopyObjectArgs args = builder.build();
+        minioClientPool.execute(client -> client.copyObject(args));
+        objectsCopied.incrementAndGet();
+    }
+
+    /**
+     * 按顺序把多个源对象合并为一个对象，源对象数量和大小不受合并接口的限制
+     *
+     * @param sourceBucket  源存储桶名称
+     * @param sourceObjects 源对象名称，按合并顺序
+     * @param bucketName    目标存储桶名称
+     * @param objectName    目标对象名称
+     * @param contentType   目标文件类型，可为 null
+     * @return 目标对象大小
+     */
+    public long compose(String sourceBucket, List<String> sourceObjects, String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        if (sourceObjects.isEmpty()) {
+            throw new IllegalArgumentException("sourceObjects must not be empty");
+        }
+        List<ObjectStat> stats = stat(sourceBucket, sourceObjects);
+        String stagingPrefix = partPrefix + objectName + "/" + UUID.randomUUID() + "/";
+        List<String> temporary = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Segment> segments = stage(sourceBucket, sourceObjects, stats, bucketName, stagingPrefix, temporary);
+            long size = 0;
+            for (Segment segment : segments) {
+                size += segment.length;
+            }
+            int level = 0;
+            long parts = parts(segments);
+            while (parts > copy.getMaxComposeSources()) {
+                segments = reduce(segments, bucketName, stagingPrefix + "level" + (++level) + "-", temporary);
+                long reduced = parts(segments);
+                if (reduced >= parts) {
+                    // 各组已是单个大段，合并中间对象不能再减少分片数
+                    throw new IllegalArgumentException("sources of " + objectName + " need " + reduced + " parts, more than maxComposeSources " + copy.getMaxComposeSources());
+                }
+                parts = reduced;
+            }
+            if (segments.isEmpty()) {
+                // 所有源对象都为空
+                putStaged(bucketName, objectName, Collections.<Segment>emptyList(), 0, contentType);
+            } else {
+                composeSegments(bucketName, objectName, segments, contentType);
+            }
+            objectsComposed.incrementAndGet();
+            return size;
+        } finally {
+            remove(bucketName, temporary);
+        }
+    }
+
+    /**
+     * 并行复制前缀下的所有对象到另一个前缀（可以在另一个存储桶），边列出边复制
+     *
+     * @param sourceBucket 源存储桶名称
+     * @param sourcePrefix 源目录，不以 / 结尾时补上 /，为空时复制整个存储桶
+     * @param bucketName   目标存储桶名称
+     * @param targetPrefix 目标目录，不以 / 结尾时补上 /，源对象名去掉源目录后拼接在其后
+     * @return 复制的对象数
+     */
+    public long copyPrefix(String sourceBucket, String sourcePrefix, String bucketName, String targetPrefix) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        String source = directory(sourcePrefix);
+        String target = directory(targetPrefix);
+        if (sourceBucket.equals(bucketName) && target.startsWith(source)) {
+            // 目标在源前缀之下时，边列出边复制会列出刚复制的对象
+            throw new IllegalArgumentException("targetPrefix must not be inside sourcePrefix");
+        }
+        AtomicLong copied = new AtomicLong();
+        TaskBatch batch = new TaskBatch(executor, copy.getConcurrency());
+        Iterator<Item> iterator = objectListing.iterator(sourceBucket, source, null, null);
+        try {
+            while (iterator.hasNext()) {
+                Item item = iterator.next();
+                String objectName = item.objectName();
+                if (objectName.endsWith("/")) {
+                    continue;
+                }
+                String targetName = target + objectName.substring(source.length());
+                if (!batch.submit(() -> {
+                    copy(sourceBucket, objectName, bucketName, targetName, null);
+                    bytesServerSide.addAndGet(item.size());
+                    copied.incrementAndGet();
+                    return null;
+                })) {
+                    break;
+                }
+            }
+        } catch (MinioRuntimeException e) {
+            batch.await();
+            MinioExceptions.rethrow(e.getCause());
+        }
+        batch.await();
+        return copied.get();
+    }
+
+    /**
+     * 按目录处理前缀，使 logs 与 logs2/ 不会被视为相互包含
+     */
+    private static String directory(String prefix) {
+        if (prefix == null) {
+            return "";
+        }
+        return prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    /**
+     * 删除 partPrefix 下最后修改时间早于 spring.minio.upload.stale-upload-ttl 的暂存对象和中间对象，
+     * 进程在合并过程中退出时这些对象不会被删除
+     *
+     * @param bucketName 存储桶名称
+     * @return 删除的对象数
+     */
+    public long removeStaleTemporary(String bucketName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        if (staleTtl <= 0) {
+            return 0;
+        }
+        return removeTemporary(bucketName, ZonedDateTime.now().minusSeconds(staleTtl));
+    }
+
+    /**
+     * 在复制线程池中执行 removeStaleTemporary，失败只记录日志
+     *
+     * @param bucketName 存储桶名称
+     */
+    public void removeStaleTemporaryAsync(String bucketName) {
+        executor.execute(() -> {
+            try {
+                removeStaleTemporary(bucketName);
+            } catch (Exception e) {
+                log.warn("remove stale temporary objects in bucket {} failed: {}", bucketName, e.toString());
+            }
+        });
+    }
+
+    /**
+     * 删除 partPrefix 下的所有临时对象，包括正在进行的合并使用的，用于删除存储桶前
+     *
+     * @param bucketName 存储桶名称
+     * @return 删除的对象数
+     */
+    public long removeTemporary(String bucketName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return removeTemporary(bucketName, null);
+    }
+
+    public long getObjectsCopied() {
+        return objectsCopied.get();
+    }
+
+    public long getObjectsComposed() {
+        return objectsComposed.get();
+    }
+
+    /**
+     * 由服务端直接复制的字节数
+     */
+    public long getBytesServerSide() {
+        return bytesServerSide.get();
+    }
+
+    /**
+     * 合并时因源对象过小而经过客户端暂存的字节数
+     */
+    public long getBytesStaged() {
+        return bytesStaged.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<ObjectStat> stat(String sourceBucket, List<String> sourceObjects) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        ObjectStat[] stats = new ObjectStat[sourceObjects.size()];
+        TaskBatch batch = new TaskBatch(executor, copy.getConcurrency());
+        for (int i = 0; i < stats.length; i++) {
+            final int index = i;
+            StatObjectArgs args = StatObjectArgs.builder().bucket(sourceBucket).object(sourceObjects.get(i)).build();
+            if (!batch.submit(() -> {
+                stats[index] = minioClientPool.execute(client -> client.statObject(args));
+                return null;
+            })) {
+                break;
+            }
+        }
+        batch.await();
+        return Arrays.asList(stats);
+    }
+
+    /**
+     * 按顺序切分源对象：不小于 MIN_PART_SIZE 的部分引用源对象，其余部分拼接后上传为临时对象
+     */
+    private List<Segment> stage(String sourceBucket, List<String> sourceObjects, List<ObjectStat> stats, String bucketName, String stagingPrefix, List<String> temporary) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        List<Segment> segments = new ArrayList<>();
+        List<Segment> pending = new ArrayList<>();
+        long pendingBytes = 0;
+        TaskBatch batch = new TaskBatch(executor, copy.getConcurrency());
+        for (int i = 0; i < stats.size(); i++) {
+            String sourceObject = sourceObjects.get(i);
+            ObjectStat stat = stats.get(i);
+            long length = stat.length();
+            long offset = 0;
+            if (pendingBytes > 0) {
+                // 补足暂存段到最小分片大小
+                long take = Math.min(length, MIN_PART_SIZE - pendingBytes);
+                pending.add(new Segment(sourceBucket, sourceObject, stat.etag(), 0, take));
+                pendingBytes += take;
+                offset = take;
+                if (pendingBytes >= MIN_PART_SIZE) {
+                    segments.add(submitStaged(batch, bucketName, stagingPrefix + segments.size(), pending, pendingBytes, temporary));
+                    pending = new ArrayList<>();
+                    pendingBytes = 0;
+                }
+            }
+            long remaining = length - offset;
+            if (remaining >= MIN_PART_SIZE) {
+                segments.add(new Segment(sourceBucket, sourceObject, stat.etag(), offset, remaining));
+                bytesServerSide.addAndGet(remaining);
+            } else if (remaining > 0) {
+                pending.add(new Segment(sourceBucket, sourceObject, stat.etag(), offset, remaining));
+                pendingBytes += remaining;
+            }
+        }
+        if (pendingBytes > 0) {
+            // 最后一段不受最小大小限制
+            segments.add(submitStaged(batch, bucketName, stagingPrefix + segments.size(), pending, pendingBytes, temporary));
+        }
+        batch.await();
+        return segments;
+    }
+
+    private Segment submitStaged(TaskBatch batch, String bucketName, String stagedName, List<Segment> pieces, long length, List<String> temporary) throws IOException {
+        temporary.add(stagedName);
+        // 已有任务失败时不再提交，await 时抛出其异常
+        batch.submit(() -> {
+            putStaged(bucketName, stagedName, pieces, length, null);
+            bytesStaged.addAndGet(length);
+            return null;
+        });
+        return new Segment(bucketName, stagedName, null, 0, length);
+    }
+
+    /**
+     * 把各片段按顺序读取拼接后上传，同一时刻只打开一个源对象的流
+     */
+    private void putStaged(String bucketName, String objectName, List<Segment> pieces, long length, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        Iterator<Segment> iterator = pieces.iterator();
+        Enumeration<InputStream> streams = new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                Segment piece = iterator.next();
+                GetObjectArgs args = GetObjectArgs.builder().bucket(piece.bucketName).object(piece.objectName)
+                        .offset(piece.offset).length(piece.length).extraHeaders(ReadConditions.ifMatch(piece.etag)).build();
+                try {
+                    return minioClientPool.executeStream(client -> client.getObject(args));
+                } catch (Exception e) {
+                    throw new MinioRuntimeException(e);
+                }
+            }
+        };
+        try (InputStream stream = new SequenceInputStream(streams)) {
+            // 7.1.0 对 0 字节对象按指定的分片大小计算出 0 个分片并走分片上传，合并时失败；不指定分片大小时按单次 PUT 上传
+            PutObjectArgs.Builder builder = PutObjectArgs.builder().bucket(bucketName).object(objectName)
+                    .stream(stream, length, length == 0 ? -1 : Math.max(length, MIN_PART_SIZE));
+            if (contentType != null) {
+                builder.contentType(contentType);
+            }
+            PutObjectArgs args = builder.build();
+            minioClientPool.execute(client -> {
+                client.putObject(args);
+                return null;
+            });
+        } catch (MinioRuntimeException e) {
+            MinioExceptions.rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * 按顺序把分片数合计不超过 maxComposeSources 的相邻段合并为一个中间对象
+     */
+    private List<Segment> reduce(List<Segment> segments, String bucketName, String stagingPrefix, List<String> temporary) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        List<Segment> reduced = new ArrayList<>();
+        TaskBatch batch = new TaskBatch(executor, copy.getConcurrency());
+        int limit = copy.getMaxComposeSources();
+        int start = 0;
+        while (start < segments.size()) {
+            int end = start;
+            long parts = 0;
+            long length = 0;
+            while (end < segments.size() && parts + parts(segments.get(end)) <= limit) {
+                parts += parts(segments.get(end));
+                length += segments.get(end).length;
+                end++;
+            }
+            if (end - start <= 1) {
+                // 单个段无需合并；超过上限时由 compose 判断能否继续减少
+                reduced.add(segments.get(start));
+                start++;
+                continue;
+            }
+            final List<Segment> group = segments.subList(start, end);
+            final String intermediate = stagingPrefix + reduced.size();
+            temporary.add(intermediate);
+            reduced.add(new Segment(bucketName, intermediate, null, 0, length));
+            if (!batch.submit(() -> {
+                composeSegments(bucketName, intermediate, group, null);
+                return null;
+            })) {
+                break;
+            }
+            start = end;
+        }
+        batch.await();
+        return reduced;
+    }
+
+    private void composeSegments(String bucketName, String objectName, List<Segment> segments, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        List<ComposeSource> sources = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            ComposeSource.Builder builder = ComposeSource.builder().bucket(segment.bucketName).object(segment.objectName);
+            if (segment.etag != null) {
+                // 引用源对象的一部分时固定 ETag，避免合并期间源对象被覆盖
+                builder.offset(segment.offset).length(segment.length).matchETag(segment.etag);
+            }
+            sources.add(builder.build());
+        }
+        ComposeObjectArgs.Builder builder = ComposeObjectArgs.builder().bucket(bucketName).object(objectName).sources(sources);
+        if (contentType != null) {
+            builder.headers(Collections.singletonMap("Content-Type", contentType));
+        }
+        ComposeObjectArgs args = builder.build();
+        minioClientPool.execute(client -> {
+            client.composeObject(args);
+            return null;
+        });
+    }
+
+    /**
+     * @param cutoff 只删除最后修改时间早于该时间的对象，为 null 时全部删除
+     */
+    private long removeTemporary(String bucketName, ZonedDateTime cutoff) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        long removed = 0;
+        List<String> batch = new ArrayList<>();
+        try {
+            Iterator<Item> iterator = objectListing.iterator(bucketName, partPrefix, null, null);
+            while (iterator.hasNext()) {
+                Item item = iterator.next();
+                if (cutoff != null && (item.lastModified() == null || !item.lastModified().isBefore(cutoff))) {
+                    continue;
+                }
+                batch.add(item.objectName());
+                if (batch.size() == 1000) {
+                    remove(bucketName, batch);
+                    removed += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (MinioRuntimeException e) {
+            MinioExceptions.rethrow(e.getCause());
+        }
+        remove(bucketName, batch);
+        removed += batch.size();
+        if (removed > 0) {
+            log.info("removed {} temporary objects under {} in bucket {}", removed, partPrefix, bucketName);
+        }
+        return removed;
+    }
+
+    private void remove(String bucketName, List<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            objects.add(new DeleteObject(objectName));
+        }
+        try {
+            for (Result<DeleteError> result : minioClientPool.client().removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build())) {
+                DeleteError error = result.get();
+                log.warn("remove temporary object {} failed: {}", error.objectName(), error.message());
+            }
+        } catch (Exception e) {
+            log.error("Exception", e);
+        }
+    }
+
+    private static long parts(List<Segment> segments) {
+        long parts = 0;
+        for (Segment segment : segments) {
+            parts += parts(segment);
+        }
+        return parts;
+    }
+
+    private static long parts(Segment segment) {
+        return Math.max(1, (segment.length + MAX_PART_SIZE - 1) / MAX_PART_SIZE);
+    }
+
+    /**
+     * 对象的一段字节，etag 为 null 表示整个临时对象
+     */
+    private static final class Segment {
+        private final String bucketName;
+        private final String objectName;
+        private final String etag;
+        private final long offset;
+        private final long length;
+
+        private Segment(String bucketName, String objectName, String etag, long offset, long length) {
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.etag = etag;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.ListObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式、分页的对象列表
+ * 结果按页从服务端拉取，不会一次性把整个存储桶的对象读入内存。
+ * hiddenPrefix 下的临时对象不出现在结果中，除非列出的前缀本身在 hiddenPrefix 之下
+ */
+public class ObjectListing {
+
+    private static final String DELIMITER = "/";
+
+    /**
+     * 并行列表结束标记
+     */
+    private static final Object END = new Object();
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.Listing listing;
+
+    private final String hiddenPrefix;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param hiddenPrefix 隐藏的对象名前缀（spring.minio.upload.part-prefix），为空时不隐藏
+     */
+    public ObjectListing(MinioClientPool minioClientPool, MinioConfig.Listing listing, String hiddenPrefix) {
+        this.minioClientPool = minioClientPool;
+        this.listing = listing;
+        this.hiddenPrefix = hiddenPrefix == null ? "" : hiddenPrefix;
+        this.executor = Executors.newFixedThreadPool(Math.max(listing.getParallelThreads(), 1), new NamedThreadFactory("minio-list"));
+    }
+
+    /**
+     * 惰性遍历对象，每次从服务端拉取 pageSize 个
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delimiter  分隔符，为 null 时递归列出所有对象
+     * @param startAfter 从该对象名之后开始，可为 null
+     * @return Iterator<Item>，遍历出错时抛出 MinioRuntimeException
+     */
+    public Iterator<Item> iterator(String bucketName, String prefix, String delimiter, String startAfter) {
+        return iterator(bucketName, prefix, delimiter, startAfter, listing.getPageSize());
+    }
+
+    /**
+     * 惰性遍历对象的 Stream，用法同 {@link #iterator(String, String, String, String)}
+     */
+    public Stream<Item> stream(String bucketName, String prefix, String delimiter, String startAfter) {
+        return toStream(iterator(bucketName, prefix, delimiter, startAfter));
+    }
+
+    /**
+     * 列出一页对象，只发起一次请求
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @param delimiter  分隔符，为 null 时递归列出所有对象
+     * @param startAfter 上一页返回的 nextStartAfter，第一页传 null
+     * @param maxKeys    每页数量，最大 1000
+     * @return ObjectPage，本页已满时 nextStartAfter 为本页最后一项之后的游标（下一页可能为空）
+     */
+    public ObjectPage page(String bucketName, String prefix, String delimiter, String startAfter, int maxKeys) {
+        Iterator<Item> iterator = iterator(bucketName, prefix, delimiter, startAfter, maxKeys);
+        List<Item> items = new ArrayList<>(maxKeys);
+        while (items.size() < maxKeys && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        String next = null;
+        if (items.size() == maxKeys) {
+            Item last = items.get(items.size() - 1);
+            // 最后一项是目录时，从该目录下所有对象之后开始，否则下一页会再次返回同一目录
+            next = last.isDir() ? last.objectName() + Character.MAX_VALUE : last.objectName();
+        }
+        return new ObjectPage(items, next);
+    }
+
+    /**
+     * 判断前缀下是否存在对象，通常只发起一次 max-keys=1 的请求（跳过隐藏对象时继续拉取）
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @return boolean
+     */
+    public boolean isEmpty(String bucketName, String prefix) {
+        return !iterator(bucketName, prefix, null, null, 1).hasNext();
+    }
+
+    /**
+     * 并行列表：一个线程按分隔符列出 prefix 下一级，其中的对象直接输出，目录交给其它线程分别递归列出。
+     * 结果顺序不保证；所有线程共用一个有界队列，内存中最多缓存 queueCapacity 个对象，使用完毕后应关闭 Stream 以结束后台列表。
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，可为 null
+     * @return Stream<Item>，不包含目录项；遍历出错时抛出 MinioRuntimeException
+     */
+    public Stream<Item> parallelStream(String bucketName, String prefix) {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(listing.getQueueCapacity(), 1));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Queue<Future<?>> futures = new ConcurrentLinkedQueue<>();
+        // 未结束的列表任务数，每个任务结束时向队列放入一个 END
+        AtomicInteger active = new AtomicInteger(1);
+        futures.add(executor.submit(() -> {
+            try {
+                Iterator<Item> first = iterator(bucketName, prefix, DELIMITER, null);
+                while (first.hasNext() && !cancelled.get()) {
+                    Item item = first.next();
+                    if (!item.isDir()) {
+                        put(queue, item, cancelled);
+                        continue;
+                    }
+                    String shard = item.objectName();
+                    active.incrementAndGet();
+                    try {
+                        futures.add(executor.submit(() -> {
+                            try {
+                                Iterator<Item> iterator = iterator(bucketName, shard, null, null);
+                                while (iterator.hasNext() && !cancelled.get()) {
+                                    put(queue, iterator.next(), cancelled);
+                                }
+                            } catch (RuntimeException e) {
+                                put(queue, e, cancelled);
+                            } finally {
+                                put(queue, END, cancelled);
+                            }
+                            return null;
+                        }));
+                    } catch (RejectedExecutionException e) {
+                        active.decrementAndGet();
+                        throw e;
+                    }
+                }
+            } catch (RuntimeException e) {
+                put(queue, e, cancelled);
+            } finally {
+                put(queue, END, cancelled);
+            }
+            return null;
+        }));
+        Iterator<Item> merged = new Iterator<Item>() {
+            private boolean done;
+            private Item next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+                while (!done) {
+                    Object element;
+                    try {
+                        element = queue.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new MinioRuntimeException("listing interrupted", e);
+                    }
+                    if (element == END) {
+                        // 一级列表任务在提交完所有目录任务后才结束，计数归零时所有任务都已结束
+                        done = active.decrementAndGet() == 0;
+                    } else if (element instanceof RuntimeException) {
+                        throw (RuntimeException) element;
+                    } else {
+                        next = (Item) element;
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Item item = next;
+                next = null;
+                return item;
+            }
+        };
+        return toStream(merged).onClose(() -> {
+            cancelled.set(true);
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 去掉 MinioClient.listObjects 结果中的隐藏对象，出错的结果原样保留，由调用方 get 时抛出
+     *
+     * @param results listObjects 的结果
+     * @return Iterable<Result<Item>>
+     */
+    public Iterable<Result<Item>> visible(Iterable<Result<Item>> results) {
+        if (hiddenPrefix.isEmpty()) {
+            return results;
+        }
+        return () -> filter(results.iterator(), result -> {
+            try {
+                return !isHidden(result.get().objectName());
+            } catch (Exception e) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * 对象名是否在隐藏前缀下
+     */
+    public boolean isHidden(String objectName) {
+        return !hiddenPrefix.isEmpty() && objectName.startsWith(hiddenPrefix);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Iterator<Item> iterator(String bucketName, String prefix, String delimiter, String startAfter, int maxKeys) {
+        ListObjectsArgs.Builder builder = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .maxKeys(Math.min(Math.max(maxKeys, 1), 1000));
+        if (prefix != null) {
+            builder.prefix(prefix);
+        }
+        if (delimiter != null) {
+            builder.delimiter(delimiter);
+        } else {
+            builder.recursive(true);
+        }
+        if (startAfter != null) {
+            builder.startAfter(startAfter);
+        }
+        Iterator<Result<Item>> results = minioClientPool.client().listObjects(builder.build()).iterator();
+        Iterator<Item> items = new Iterator<Item>() {
+            @Override
+            public boolean hasNext() {
+                return results.hasNext();
+            }
+
+            @Override
+            public Item next() {
+                try {
+                    return results.next().get();
+                } catch (Exception e) {
+                    throw new MinioRuntimeException(e);
+                }
+            }
+        };
+        if (hiddenPrefix.isEmpty() || (prefix != null && prefix.startsWith(hiddenPrefix))) {
+            return items;
+        }
+        return filter(items, item -> !isHidden(item.objectName()));
+    }
+
+    private static <T> Iterator<T> filter(Iterator<T> iterator, Predicate<T> predicate) {
+        return new Iterator<T>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && iterator.hasNext()) {
+                    T element = iterator.next();
+                    if (predicate.test(element)) {
+                        next = element;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T element = next;
+                next = null;
+                return element;
+            }
+        };
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object element, AtomicBoolean cancelled) throws InterruptedException {
+        while (!cancelled.get()) {
+            if (queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
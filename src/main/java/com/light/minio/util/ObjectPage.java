@@ -0,0 +1,32 @@
+package com.light.minio.util;
+
+import io.minio.messages.Item;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 对象列表的一页
+ */
+@Getter
+public class ObjectPage {
+
+    /**
+     * 本页的对象（使用分隔符时包含目录项）
+     */
+    private final List<Item> items;
+
+    /**
+     * 下一页的起始游标（作为 startAfter 传回），没有更多数据时为 null
+     */
+    private final String nextStartAfter;
+
+    public ObjectPage(List<Item> items, String nextStartAfter) {
+        this.items = items;
+        this.nextStartAfter = nextStartAfter;
+    }
+
+    public boolean hasNext() {
+        return nextStartAfter != null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.light.minio.util;
+
+import io.minio.SelectResponseStream;
+import io.minio.messages.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * S3 Select 的输入输出格式和结果流
+ * 查询在服务端执行，只有匹配的记录经过网络，结果边接收边读取
+ */
+public final class ObjectSelect {
+
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+
+    private ObjectSelect() {
+    }
+
+    /**
+     * CSV 输入
+     *
+     * @param header      首行是否为列名，为 true 时 SQL 中可以按列名引用
+     * @param delimiter   字段分隔符，为 null 时使用逗号
+     * @param compression 压缩格式，为 null 时不压缩
+     * @return InputSerialization
+     */
+    public static InputSerialization csv(boolean header, Character delimiter, CompressionType compression) {
+        return new InputSerialization(compression != null ? compression : CompressionType.NONE, false, null,
+                delimiter != null ? delimiter : ',', header ? FileHeaderInfo.USE : FileHeaderInfo.NONE, null, null, null);
+    }
+
+    /**
+     * JSON 输入
+     *
+     * @param lines       为 true 时每行一个 JSON 对象，否则为 JSON 文档
+     * @param compression 压缩格式，为 null 时不压缩
+     * @return InputSerialization
+     */
+    public static InputSerialization json(boolean lines, CompressionType compression) {
+        return new InputSerialization(compression != null ? compression : CompressionType.NONE, lines ? JsonType.LINES : JsonType.DOCUMENT);
+    }
+
+    /**
+     * Parquet 输入
+     *
+     * @return InputSerialization
+     */
+    public static InputSerialization parquet() {
+        return new InputSerialization();
+    }
+
+    /**
+     * CSV 输出，记录以 \n 结尾；字段值中的换行符原样保留在引号内
+     *
+     * @return OutputSerialization
+     */
+    public static OutputSerialization csvOutput() {
+        return new OutputSerialization(',', '"', '"', QuoteFields.ASNEEDED, '\n');
+    }
+
+    /**
+     * JSON 输出，每条记录一行
+     *
+     * @return OutputSerialization
+     */
+    public static OutputSerialization jsonOutput() {
+        return new OutputSerialization('\n');
+    }
+
+    /**
+     * 包装查询结果流：按读取的字节数回调进度，读到末尾时回调服务端统计信息
+     *
+     * @param stream   selectObjectContent 返回的流
+     * @param listener 回调，可为 null
+     * @return InputStream
+     */
+    static InputStream monitor(SelectResponseStream stream, SelectListener listener) {
+        if (listener == null) {
+            return stream;
+        }
+        return new FilterInputStream(stream) {
+
+            private long bytes;
+
+            private long reported;
+
+            private boolean finished;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                progress(b < 0 ? -1 : 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                progress(n);
+                return n;
+            }
+
+            private void progress(int n) {
+                if (n < 0) {
+                    if (!finished) {
+                        finished = true;
+                        listener.onProgress(bytes);
+                        Stats stats = stream.stats();
+                        if (stats != null) {
+                            listener.onStats(stats.bytesScanned(), stats.bytesProcessed(), stats.bytesReturned());
+                        }
+                    }
+                    return;
+                }
+                bytes += n;
+                if (bytes - reported >= PROGRESS_INTERVAL) {
+                    reported = bytes;
+                    listener.onProgress(bytes);
+                }
+            }
+        };
+    }
+
+    /**
+     * 按行读取查询结果，配合 csvOutput/jsonOutput 时每行为一条记录；关闭 Stream 时关闭结果流。
+     * 只按换行符（\n、\r 或 \r\n）切分，不解析 CSV 引号：带引号的字段中含换行符时，该记录会被拆成多行
+     *
+     * @param stream 查询结果流
+     * @return Stream<String>，读取出错时抛出 UncheckedIOException
+     */
+    static Stream<String> lines(InputStream stream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        return reader.lines().onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
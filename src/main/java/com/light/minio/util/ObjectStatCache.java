@@ -0,0 +1,154 @@
+package com.light.minio.util;
+
+import io.minio.ObjectStat;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对象元数据（ObjectStat）缓存
+ * 按 存储桶/对象名称 缓存，超过 ttl 过期，超过 maxEntries 时淘汰最久未访问的条目
+ */
+public class ObjectStatCache {
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param ttl        缓存时间（秒），小于等于 0 表示不缓存
+     * @param maxEntries 最大缓存条目数
+     */
+    public ObjectStatCache(long ttl, int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(ttl, 0));
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ObjectStatCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @return 未命中或已过期时返回 null
+     */
+    public ObjectStat get(String bucketName, String objectName) {
+        String key = key(bucketName, objectName);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expireAt < 0) {
+                    hits.incrementAndGet();
+                    return entry.stat;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param stat       对象元数据
+     */
+    public void put(String bucketName, String objectName, ObjectStat stat) {
+        if (stat == null || ttlNanos <= 0 || maxEntries <= 0) {
+            return;
+        }
+        Entry entry = new Entry(stat, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key(bucketName, objectName), entry);
+        }
+    }
+
+    /**
+     * 使指定对象的缓存失效
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     */
+    public void invalidate(String bucketName, String objectName) {
+        synchronized (entries) {
+            entries.remove(key(bucketName, objectName));
+        }
+    }
+
+    /**
+     * 使指定存储桶下所有对象的缓存失效
+     *
+     * @param bucketName 存储桶名称
+     */
+    public void invalidateBucket(String bucketName) {
+        String prefix = bucketName + "/";
+        synchronized (entries) {
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static String key(String bucketName, String objectName) {
+        return bucketName + "/" + objectName;
+    }
+
+    private static final class Entry {
+        private final ObjectStat stat;
+        private final long expireAt;
+
+        private Entry(ObjectStat stat, long expireAt) {
+            this.stat = stat;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.light.minio.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单类操作的并发限制
+ * 同时执行的任务数不超过 maxInFlight，其余任务排队等待，排队数超过 maxPending 时直接以 RejectedExecutionException 失败。
+ * 排队不占用线程池线程。
+ */
+public class OperationLimiter {
+
+    private final String name;
+
+    private final Executor executor;
+
+    private final int maxInFlight;
+
+    private final int maxPending;
+
+    private final Queue<Operation<?>> pending = new ArrayDeque<>();
+
+    private int inFlight;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OperationLimiter(String name, Executor executor, int maxInFlight, int maxPending) {
+        this.name = name;
+        this.executor = executor;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.maxPending = Math.max(maxPending, 0);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @return 任务结果，任务抛出的异常作为 future 的异常结果；线程池拒绝执行时以 RejectedExecutionException 失败
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        Operation<T> operation = new Operation<>(task);
+        boolean runNow;
+        synchronized (this) {
+            if (inFlight < maxInFlight) {
+                inFlight++;
+                runNow = true;
+            } else if (pending.size() < maxPending) {
+                pending.add(operation);
+                runNow = false;
+            } else {
+                rejected.incrementAndGet();
+                operation.future.completeExceptionally(new RejectedExecutionException(name + " has " + maxPending + " pending operations"));
+                return operation.future;
+            }
+        }
+        if (runNow) {
+            dispatch(operation);
+        }
+        return operation.future;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 取出下一个排队的任务沿用当前许可，没有排队的任务时归还许可
+     */
+    private Operation<?> next() {
+        synchronized (this) {
+            Operation<?> next = pending.poll();
+            if (next == null) {
+                inFlight--;
+            }
+            return next;
+        }
+    }
+
+    private void dispatch(Operation<?> operation) {
+        while (operation != null) {
+            try {
+                executor.execute(operation);
+                return;
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭或已满：任务失败并归还许可，不占用调用方线程执行
+                rejected.incrementAndGet();
+                operation.future.completeExceptionally(e);
+                operation = next();
+            }
+        }
+    }
+
+    private final class Operation<T> implements Runnable {
+
+        private final Callable<T> task;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Operation(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                dispatch(next());
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.GetObjectArgs;
+import io.minio.ObjectStat;
+import io.minio.errors.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行分段下载
+ * 按 ObjectStat 的长度将对象切分为若干字节区间并发下载，每段直接写入预分配文件的对应位置。
+ * 单段失败时只重试该段剩余部分；已完成的分段先刷到磁盘再记录在清单文件中，中断后再次下载时跳过。
+ * 各段共用一个 FileChannel，一段最终失败时其余段不被中断（中断会关闭共用的通道），而是在下一次写入前结束。
+ */
+@Slf4j
+public class ParallelDownloader {
+
+    private static final long MIN_RANGE_SIZE = 1024L * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.Download download;
+
+    private final MinioInstrumentation instrumentation;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong rangesDownloaded = new AtomicLong();
+
+    private final AtomicLong rangesResumed = new AtomicLong();
+
+    private final AtomicLong rangeRetries = new AtomicLong();
+
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    public ParallelDownloader(MinioClientPool minioClientPool, MinioConfig.Download download, MinioInstrumentation instrumentation) {
+        this.minioClientPool = minioClientPool;
+        this.download = download;
+        this.instrumentation = instrumentation;
+        this.executor = Executors.newFixedThreadPool(Math.max(download.getThreads(), 1), new NamedThreadFactory("minio-download"));
+    }
+
+    /**
+     * 并行下载对象到本地文件，下载期间写入 fileName.part，完成后重命名为 fileName
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param stat       对象元数据，用于确定长度和 ETag
+     * @param fileName   本地文件名
+     */
+    public void download(String bucketName, String objectName, ObjectStat stat, String fileName) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        long length = stat.length();
+        long rangeSize = Math.max(download.getRangeSize(), MIN_RANGE_SIZE);
+        int rangeCount = (int) Math.max(1, (length + rangeSize - 1) / rangeSize);
+        Path target = Paths.get(fileName);
+        Path partFile = Paths.get(fileName + PART_SUFFIX);
+        Path manifestFile = Paths.get(fileName + MANIFEST_SUFFIX);
+
+        // 不续传时没有清单，各分段完成后也不必逐段落盘
+        Manifest manifest = download.isResume() ? Manifest.load(manifestFile, partFile, stat.etag(), length, rangeSize) : null;
+        if (manifest == null) {
+            Files.deleteIfExists(partFile);
+            if (download.isResume()) {
+                manifest = new Manifest(manifestFile, stat.etag(), length, rangeSize, new BitSet(rangeCount));
+            }
+        }
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            preallocate(channel, length);
+            TaskBatch batch = new TaskBatch(executor, download.getConcurrency());
+            for (int i = 0; i < rangeCount; i++) {
+                if (manifest != null && manifest.isDone(i)) {
+                    rangesResumed.incrementAndGet();
+                    continue;
+                }
+                final int index = i;
+                final long offset = i * rangeSize;
+                final long rangeLength = Math.min(rangeSize, length - offset);
+                final Manifest progress = manifest;
+                if (!batch.submit(() -> {
+                    if (fetchRange(batch, bucketName, objectName, stat.etag(), channel, offset, rangeLength) && progress != null) {
+                        // 数据落盘后再记录完成，否则崩溃后清单中的分段可能没有数据
+                        channel.force(false);
+                        progress.markDone(index);
+                    }
+                    return null;
+                })) {
+                    break;
+                }
+            }
+            batch.await();
+            channel.force(false);
+            completed = true;
+        } finally {
+            // 不续传时下载中的文件无法复用
+            if (!completed && manifest == null) {
+                try {
+                    Files.deleteIfExists(partFile);
+                } catch (IOException e) {
+                    log.warn("delete {} failed: {}", partFile, e.toString());
+                }
+            }
+        }
+        Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        if (manifest != null) {
+            Files.deleteIfExists(manifestFile);
+        }
+    }
+
+    public long getRangesDownloaded() {
+        return rangesDownloaded.get();
+    }
+
+    public long getRangesResumed() {
+        return rangesResumed.get();
+    }
+
+    public long getRangeRetries() {
+        return rangeRetries.get();
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 下载一个字节区间并写入文件对应位置，失败时从已写入的位置继续重试
+     *
+     * @return 是否完成；其它段失败导致 batch 取消时提前返回 false
+     */
+    private boolean fetchRange(TaskBatch batch, String bucketName, String objectName, String etag, FileChannel channel, long offset, long rangeLength) throws Exception {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("getPart", bucketName, objectName)) {
+            long written = 0;
+            int attempt = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (true) {
+                GetObjectArgs args = GetObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .offset(offset + written)
+                        .length(rangeLength - written)
+                        .extraHeaders(ReadConditions.ifMatch(etag))
+                        .build();
+                try (InputStream stream = minioClientPool.executeStream(client -> client.getObject(args))) {
+                    int n;
+                    while (written < rangeLength && (n = stream.read(buffer, 0, (int) Math.min(buffer.length, rangeLength - written))) > 0) {
+                        if (batch.isCancelled()) {
+                            return false;
+                        }
+                        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, n);
+                        long position = offset + written;
+                        while (byteBuffer.hasRemaining()) {
+                            position += channel.write(byteBuffer, position);
+                        }
+                        written += n;
+                        bytesDownloaded.addAndGet(n);
+                    }
+                    if (written < rangeLength) {
+                        throw new EOFException("range " + offset + " ended at " + (offset + written) + ", expected " + (offset + rangeLength));
+                    }
+                    rangesDownloaded.incrementAndGet();
+                    return true;
+                } catch (Exception e) {
+                    // 对象已被修改时重试无意义
+                    if (MinioExceptions.isPreconditionFailed(e) || e instanceof InterruptedIOException || ++attempt > download.getRetries()) {
+                        throw e;
+                    }
+                    if (batch.isCancelled()) {
+                        return false;
+                    }
+                    rangeRetries.incrementAndGet();
+                    log.warn("download range {}+{} of {}/{} failed, retry {}", offset + written, rangeLength - written, bucketName, objectName, attempt, e);
+                    Thread.sleep(backoff(attempt));
+                }
+            }
+        }
+    }
+
+    private long backoff(int attempt) {
+        long base = download.getRetryBackoff() << Math.min(attempt - 1, 10);
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private static void preallocate(FileChannel channel, long length) throws IOException {
+        if (channel.size() > length) {
+            channel.truncate(length);
+        } else if (channel.size() < length) {
+            channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+        }
+    }
+
+    /**
+     * 断点续传清单，记录对象 ETag、长度、分段大小和已完成的分段
+     */
+    private static final class Manifest {
+
+        private final Path path;
+
+        private final String etag;
+
+        private final long length;
+
+        private final long rangeSize;
+
+        private final BitSet done;
+
+        private Manifest(Path path, String etag, long length, long rangeSize, BitSet done) {
+            this.path = path;
+            this.etag = etag;
+            this.length = length;
+            this.rangeSize = rangeSize;
+            this.done = done;
+        }
+
+        /**
+         * 读取清单，清单或下载中的文件不存在、或与当前对象不一致时返回 null
+         */
+        static Manifest load(Path path, Path partFile, String etag, long length, long rangeSize) {
+            if (!Files.exists(path) || !Files.exists(partFile)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.warn("read manifest {} failed", path, e);
+                return null;
+            }
+            if (!String.valueOf(etag).equals(properties.getProperty("etag"))
+                    || !String.valueOf(length).equals(properties.getProperty("length"))
+                    || !String.valueOf(rangeSize).equals(properties.getProperty("rangeSize"))) {
+                return null;
+            }
+            BitSet done = new BitSet();
+            String ranges = properties.getProperty("done", "");
+            for (String index : ranges.split(",")) {
+                if (!index.isEmpty()) {
+                    done.set(Integer.parseInt(index));
+                }
+            }
+            return new Manifest(path, etag, length, rangeSize, done);
+        }
+
+        synchronized boolean isDone(int index) {
+            return done.get(index);
+        }
+
+        synchronized void markDone(int index) throws IOException {
+            done.set(index);
+            StringBuilder ranges = new StringBuilder();
+            for (int i = done.nextSetBit(0); i >= 0; i = done.nextSetBit(i + 1)) {
+                if (ranges.length() > 0) {
+                    ranges.append(',');
+                }
+                ranges.append(i);
+            }
+            Properties properties = new Properties();
+            properties.setProperty("etag", String.valueOf(etag));
+            properties.setProperty("length", String.valueOf(length));
+            properties.setProperty("rangeSize", String.valueOf(rangeSize));
+            properties.setProperty("done", ranges.toString());
+            Path temp = Paths.get(path + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
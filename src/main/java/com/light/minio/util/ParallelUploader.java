@@ -0,0 +1,615 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.errors.*;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并行分片上传
+ * 文件按自适应分片大小切分，通过分片上传接口（CreateMultipartUpload/UploadPart/CompleteMultipartUpload）并行上传各分片。
+ * 分片在完成前只属于服务端的未完成上传，不会作为对象出现在列表中；完成时服务端直接拼接分片，不再复制数据。
+ * 文件上传的 uploadId 按文件指纹记录在 stateDirectory 中，中断后再次上传同一文件时跳过服务端已有的分片。
+ */
+@Slf4j
+public class ParallelUploader {
+
+    private static final long MIB = 1024L * 1024;
+
+    /**
+     * 分片（最后一个除外）的最小大小
+     */
+    private static final long MIN_PART_SIZE = 5 * MIB;
+
+    /**
+     * 单个分片的最大大小
+     */
+    private static final long MAX_PART_SIZE = 5 * 1024 * MIB;
+
+    /**
+     * 分片的最大数量
+     */
+    private static final int MAX_PARTS = 10000;
+
+    /**
+     * 向堆外缓冲区读取时的中转数组大小
+     */
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+
+    private static final String STATE_SUFFIX = ".upload";
+
+    private final MinioClientPool minioClientPool;
+
+    private final MinioConfig.Upload upload;
+
+    private final MinioInstrumentation instrumentation;
+
+    private final ExecutorService executor;
+
+    private final UploadBufferPool bufferPool;
+
+    /**
+     * 堆外分片缓冲区发送前的堆内暂存数组，SDK 的请求体只接受堆内数组；使用堆内缓冲区时为 null
+     */
+    private final UploadBufferPool stagingPool;
+
+    private final AtomicLong partsUploaded = new AtomicLong();
+
+    private final AtomicLong partsResumed = new AtomicLong();
+
+    private final AtomicLong bytesUploaded = new AtomicLong();
+
+    private final AtomicLong uploadsAborted = new AtomicLong();
+
+    public ParallelUploader(MinioClientPool minioClientPool, MinioConfig.Upload upload, MinioInstrumentation instrumentation) {
+        this.minioClientPool = minioClientPool;
+        this.upload = upload;
+        this.instrumentation = instrumentation;
+        this.executor = Executors.newFixedThreadPool(Math.max(upload.getThreads(), 1), new NamedThreadFactory("minio-upload"));
+        this.bufferPool = new UploadBufferPool((int) Math.min(partSize(-1), Integer.MAX_VALUE - 8),
+                upload.getBufferPoolMaxBytes(), upload.isDirectBuffers(), upload.getBufferWaitTimeout());
+        this.stagingPool = upload.isDirectBuffers() ? new UploadBufferPool(bufferPool.getBufferSize(),
+                upload.getBufferPoolMaxBytes(), false, upload.getBufferWaitTimeout()) : null;
+    }
+
+    /**
+     * 根据对象大小计算分片大小，保证分片数不超过 10000
+     *
+     * @param objectSize 对象大小，未知时传 -1
+     * @return 分片大小
+     */
+    public long partSize(long objectSize) {
+        long partSize = Math.max(upload.getPartSize(), MIN_PART_SIZE);
+        if (objectSize > 0) {
+            long required = (objectSize + MAX_PARTS - 1) / MAX_PARTS;
+            if (required > partSize) {
+                partSize = (required + MIB - 1) / MIB * MIB;
+            }
+        }
+        return Math.min(partSize, MAX_PART_SIZE);
+    }
+
+    /**
+     * 并行上传本地文件
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  存储桶里的对象名称
+     * @param fileName    本地文件名
+     * @param contentType 文件类型，可为 null
+     * @return 上传结果，包含目标对象的 ETag
+     */
+    public ObjectWriteResponse uploadFile(String bucketName, String objectName, String fileName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        File file = new File(fileName);
+        long size = file.length();
+        long partSize = partSize(size);
+        int partCount = (int) Math.max(1, (size + partSize - 1) / partSize);
+        if (partCount == 1) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return putObject(bucketName, objectName, new FileChannelRangeInputStream(channel, 0, size), size, contentType);
+            }
+        }
+        Path state = upload.isResume() ? statePath(fingerprint(bucketName, objectName, file, partSize)) : null;
+        Map<Integer, Part> existing = new HashMap<>();
+        String resumed = state != null ? resume(bucketName, objectName, state, existing) : null;
+        final String uploadId = resumed != null ? resumed : initiate(bucketName, objectName, contentType);
+        if (state != null && resumed == null) {
+            saveState(state, new UploadState(uploadId, bucketName, objectName));
+        }
+        Part[] parts = new Part[partCount];
+        boolean completed = false;
+        try {
+            TaskBatch batch = new TaskBatch(executor, upload.getConcurrency());
+            for (int i = 0; i < partCount; i++) {
+                final int partNumber = i + 1;
+                final long offset = i * partSize;
+                final int length = (int) Math.min(partSize, size - offset);
+                Part part = existing.get(partNumber);
+                if (part != null && part.partSize() == length) {
+                    parts[i] = new Part(partNumber, part.etag());
+                    partsResumed.incrementAndGet();
+                    continue;
+                }
+                if (!batch.submit(() -> {
+                    try (RandomAccessFile source = new RandomAccessFile(file, "r")) {
+                        source.seek(offset);
+                        String etag = uploadPart(bucketName, objectName, uploadId, partNumber, length,
+                                client -> client.uploadPart(bucketName, objectName, uploadId, partNumber, source, length));
+                        parts[partNumber - 1] = new Part(partNumber, etag);
+                    }
+                    return null;
+                })) {
+                    break;
+                }
+            }
+            batch.await();
+            ObjectWriteResponse response = complete(bucketName, objectName, uploadId, parts);
+            completed = true;
+            return response;
+        } finally {
+            if (completed) {
+                deleteState(state);
+            } else if (state == null) {
+                abort(bucketName, objectName, uploadId);
+            }
+            // 启用续传时保留未完成的上传，再次上传同一文件时续传，记录过期后由 abortStaleUploads 清理
+        }
+    }
+
+    /**
+     * 并行上传未知大小的流，分片缓冲区从 bufferPool 获取，单次上传最多同时占用 concurrency + 1 个缓冲区；
+     * 缓冲区的数组直接作为请求体发送，不再复制到堆上
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  存储桶里的对象名称
+     * @param inputStream 要上传的流
+     * @param contentType 文件类型，可为 null
+     * @return 上传结果，包含目标对象的 ETag
+     */
+    public ObjectWriteResponse uploadStream(String bucketName, String objectName, InputStream inputStream, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        int partSize = bufferPool.getBufferSize();
+        ByteBuffer first = bufferPool.acquire();
+        int length;
+        try {
+            length = readFully(inputStream, first);
+        } catch (IOException | RuntimeException e) {
+            bufferPool.release(first);
+            throw e;
+        }
+        if (length < partSize) {
+            try {
+                return putBuffer(bucketName, objectName, first, length, contentType);
+            } finally {
+                bufferPool.release(first);
+            }
+        }
+        Part[] parts = new Part[MAX_PARTS];
+        int partCount = 0;
+        // 缓冲区由先取到的一方归还：任务开始执行时取走，未执行（未提交或被取消）的在 finally 中归还
+        List<AtomicReference<ByteBuffer>> buffers = new ArrayList<>();
+        buffers.add(new AtomicReference<>(first));
+        String uploadId = null;
+        boolean completed = false;
+        try {
+            final String id = initiate(bucketName, objectName, contentType);
+            uploadId = id;
+            TaskBatch batch = new TaskBatch(executor, upload.getConcurrency());
+            while (length > 0) {
+                if (partCount >= MAX_PARTS) {
+                    throw new IOException("stream exceeds " + MAX_PARTS + " parts of " + partSize + " bytes");
+                }
+                final int partNumber = ++partCount;
+                final AtomicReference<ByteBuffer> owner = buffers.get(buffers.size() - 1);
+                final int dataLength = length;
+                if (!batch.submit(() -> {
+                    ByteBuffer data = owner.getAndSet(null);
+                    if (data == null) {
+                        return null;
+                    }
+                    try {
+                        parts[partNumber - 1] = new Part(partNumber, uploadBuffer(bucketName, objectName, id, partNumber, data, dataLength));
+                    } finally {
+                        bufferPool.release(data);
+                    }
+                    return null;
+                }) || length < partSize) {
+                    break;
+                }
+                ByteBuffer buffer = bufferPool.acquire();
+                buffers.add(new AtomicReference<>(buffer));
+                length = readFully(inputStream, buffer);
+            }
+            batch.await();
+            ObjectWriteResponse response = complete(bucketName, objectName, id, Arrays.copyOf(parts, partCount));
+            completed = true;
+            return response;
+        } finally {
+            for (AtomicReference<ByteBuffer> owner : buffers) {
+                ByteBuffer buffer = owner.getAndSet(null);
+                if (buffer != null) {
+                    bufferPool.release(buffer);
+                }
+            }
+            // 流无法续传，失败时放弃上传，服务端删除已上传的分片
+            if (!completed && uploadId != null) {
+                abort(bucketName, objectName, uploadId);
+            }
+        }
+    }
+
+    /**
+     * 放弃本机续传记录中早于 spring.minio.upload.stale-upload-ttl 的未完成分片上传，在记录的存储桶中逐个放弃。
+     * 只处理本库记录过的 uploadId，其它客户端发起的未完成上传不受影响；进程崩溃留下的分片由此清理。
+     * 放弃成功或服务端已不存在该上传时才删除记录，失败的记录保留到下次清理
+     *
+     * @return 放弃的上传数
+     */
+    public int abortStaleUploads() {
+        if (upload.getStaleUploadTtl() <= 0) {
+            return 0;
+        }
+        int aborted = 0;
+        for (Path state : staleStates(TimeUnit.SECONDS.toMillis(upload.getStaleUploadTtl()))) {
+            UploadState record;
+            try {
+                record = readState(state);
+            } catch (NoSuchFileException e) {
+                // 已被并发的上传完成或清理
+                continue;
+            } catch (IOException e) {
+                log.warn("read upload state {} failed: {}", state, e.toString());
+                continue;
+            }
+            if (record == null) {
+                log.warn("ignore malformed upload state {}", state);
+                continue;
+            }
+            try {
+                minioClientPool.execute(client -> {
+                    MultipartMinioClient.of(client).abort(record.bucketName, record.objectName, record.uploadId);
+                    return null;
+                });
+                uploadsAborted.incrementAndGet();
+                aborted++;
+            } catch (Exception e) {
+                if (!MinioExceptions.isNoSuchUpload(e)) {
+                    log.warn("abort stale multipart upload {} of {}/{} failed: {}", record.uploadId, record.bucketName, record.objectName, e.toString());
+                    continue;
+                }
+                // 上传已完成、被放弃或已过期
+            }
+            deleteState(state);
+        }
+        if (aborted > 0) {
+            log.info("aborted {} stale multipart uploads", aborted);
+        }
+        return aborted;
+    }
+
+    /**
+     * 在上传线程池中执行 abortStaleUploads
+     */
+    public void abortStaleUploadsAsync() {
+        executor.execute(this::abortStaleUploads);
+    }
+
+    public UploadBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public long getPartsUploaded() {
+        return partsUploaded.get();
+    }
+
+    public long getPartsResumed() {
+        return partsResumed.get();
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    /**
+     * 因失败或过期而放弃的分片上传数
+     */
+    public long getUploadsAborted() {
+        return uploadsAborted.get();
+    }
+
+    /**
+     * 堆外缓冲区的暂存数组池，使用堆内缓冲区时为 null
+     */
+    public UploadBufferPool getStagingPool() {
+        return stagingPool;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        bufferPool.trim();
+        if (stagingPool != null) {
+            stagingPool.trim();
+        }
+    }
+
+    /**
+     * 不足一个分片的数据直接 PUT
+     */
+    private ObjectWriteResponse putObject(String bucketName, String objectName, InputStream stream, long length, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("putPart", bucketName, objectName)) {
+            // 分片大小即 PUT 大小，保证只发起一次请求
+            PutObjectArgs.Builder builder = PutObjectArgs.builder().bucket(bucketName).object(objectName)
+                    .stream(stream, length, Math.max(length, MIN_PART_SIZE));
+            if (contentType != null) {
+                builder.contentType(contentType);
+            }
+            PutObjectArgs args = builder.build();
+            ObjectWriteResponse response = minioClientPool.execute(client -> client.putObject(args));
+            partsUploaded.incrementAndGet();
+            bytesUploaded.addAndGet(length);
+            return response;
+        }
+    }
+
+    /**
+     * 以一次 PUT 上传不足一个分片的缓冲区
+     */
+    private ObjectWriteResponse putBuffer(String bucketName, String objectName, ByteBuffer data, int length, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        ByteBuffer payload = heapPayload(data);
+        try (MinioInstrumentation.Scope scope = instrumentation.start("putPart", bucketName, objectName)) {
+            ObjectWriteResponse response = minioClientPool.execute(client ->
+                    MultipartMinioClient.of(client).put(bucketName, objectName, payload.array(), length, contentType));
+            partsUploaded.incrementAndGet();
+            bytesUploaded.addAndGet(length);
+            return response;
+        } finally {
+            if (payload != data) {
+                stagingPool.release(payload);
+            }
+        }
+    }
+
+    /**
+     * 上传缓冲区中的一个分片
+     *
+     * @return 分片 ETag
+     */
+    private String uploadBuffer(String bucketName, String objectName, String uploadId, int partNumber, ByteBuffer data, int length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        ByteBuffer payload = heapPayload(data);
+        try {
+            return uploadPart(bucketName, objectName, uploadId, partNumber, length,
+                    client -> client.uploadPart(bucketName, objectName, uploadId, partNumber, payload.array(), length));
+        } finally {
+            if (payload != data) {
+                stagingPool.release(payload);
+            }
+        }
+    }
+
+    /**
+     * 堆内缓冲区（数组从下标 0 开始）直接返回；堆外缓冲区复制到从 stagingPool 取的数组，用完后由调用方归还
+     */
+    private ByteBuffer heapPayload(ByteBuffer data) throws IOException {
+        if (data.hasArray()) {
+            return data;
+        }
+        ByteBuffer staging = stagingPool.acquire();
+        staging.put(data.duplicate());
+        return staging;
+    }
+
+    /**
+     * 分片上传的一次调用
+     */
+    private interface PartCall {
+        String call(MultipartMinioClient client) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException;
+    }
+
+    private String uploadPart(String bucketName, String objectName, String uploadId, int partNumber, long length, PartCall call) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("putPart", bucketName, objectName)) {
+            String etag = minioClientPool.execute(client -> call.call(MultipartMinioClient.of(client)));
+            partsUploaded.incrementAndGet();
+            bytesUploaded.addAndGet(length);
+            return etag;
+        }
+    }
+
+    private String initiate(String bucketName, String objectName, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return minioClientPool.execute(client -> MultipartMinioClient.of(client).initiate(bucketName, objectName, contentType));
+    }
+
+    private ObjectWriteResponse complete(String bucketName, String objectName, String uploadId, Part[] parts) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        return minioClientPool.execute(client -> MultipartMinioClient.of(client).complete(bucketName, objectName, uploadId, parts));
+    }
+
+    private void abort(String bucketName, String objectName, String uploadId) {
+        try {
+            minioClientPool.execute(client -> {
+                MultipartMinioClient.of(client).abort(bucketName, objectName, uploadId);
+                return null;
+            });
+            uploadsAborted.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("abort multipart upload {} of {}/{} failed: {}", uploadId, bucketName, objectName, e.toString());
+        }
+    }
+
+    /**
+     * 读取续传记录，并列出该上传在服务端已有的分片
+     *
+     * @param existing 已上传的分片，按分片号
+     * @return 可以续传的 uploadId，没有记录或服务端已不存在该上传时返回 null
+     */
+    private String resume(String bucketName, String objectName, Path state, Map<Integer, Part> existing) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        UploadState record;
+        try {
+            record = readState(state);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (record == null) {
+            return null;
+        }
+        String uploadId = record.uploadId;
+        try {
+            Integer marker = null;
+            while (true) {
+                final Integer partNumberMarker = marker;
+                ListPartsResult result = minioClientPool.execute(client ->
+                        MultipartMinioClient.of(client).parts(bucketName, objectName, uploadId, partNumberMarker));
+                for (Part part : result.partList()) {
+                    existing.put(part.partNumber(), part);
+                }
+                if (!result.isTruncated()) {
+                    return uploadId;
+                }
+                marker = result.nextPartNumberMarker();
+            }
+        } catch (ErrorResponseException e) {
+            if (MinioExceptions.isNoSuchUpload(e)) {
+                // 上传已完成、被放弃或已过期
+                existing.clear();
+                deleteState(state);
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private Path statePath(String fingerprint) {
+        return Paths.get(upload.getStateDirectory(), fingerprint + STATE_SUFFIX);
+    }
+
+    private static void saveState(Path state, UploadState record) throws IOException {
+        Files.createDirectories(state.getParent());
+        String content = record.uploadId + "\n" + record.bucketName + "\n" + record.objectName;
+        Files.write(state, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 续传记录，内容不完整时返回 null
+     */
+    private static UploadState readState(Path state) throws IOException {
+        String content = new String(Files.readAllBytes(state), StandardCharsets.UTF_8);
+        // 对象名在最后一行，本身可以包含换行
+        String[] lines = content.split("\n", 3);
+        if (lines.length < 3 || lines[0].isEmpty() || lines[1].isEmpty() || lines[2].isEmpty()) {
+            return null;
+        }
+        return new UploadState(lines[0], lines[1], lines[2]);
+    }
+
+    private static void deleteState(Path state) {
+        if (state == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(state);
+        } catch (IOException e) {
+            log.warn("delete upload state {} failed: {}", state, e.toString());
+        }
+    }
+
+    private List<Path> staleStates(long ttlMillis) {
+        List<Path> stale = new ArrayList<>();
+        Path directory = Paths.get(upload.getStateDirectory());
+        if (!Files.isDirectory(directory)) {
+            return stale;
+        }
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        try (DirectoryStream<Path> states = Files.newDirectoryStream(directory, "*" + STATE_SUFFIX)) {
+            for (Path state : states) {
+                if (Files.getLastModifiedTime(state).toMillis() < cutoff) {
+                    stale.add(state);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("list upload states in {} failed: {}", directory, e.toString());
+        }
+        return stale;
+    }
+
+    /**
+     * 续传记录：uploadId 及其所属的存储桶和对象
+     */
+    private static final class UploadState {
+
+        private final String uploadId;
+
+        private final String bucketName;
+
+        private final String objectName;
+
+        private UploadState(String uploadId, String bucketName, String objectName) {
+            this.uploadId = uploadId;
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+        }
+    }
+
+    private static String fingerprint(String bucketName, String objectName, File file, long partSize) throws NoSuchAlgorithmException {
+        String source = bucketName + "\n" + objectName + "\n" + file.getAbsolutePath() + "\n"
+                + file.length() + "\n" + file.lastModified() + "\n" + partSize;
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            hex.append(String.format("%02x", digest[i]));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 读满缓冲区或读到流末尾，返回时 position 为 0、limit 为读到的字节数
+     */
+    private static int readFully(InputStream inputStream, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int total = 0;
+            while (total < buffer.capacity()) {
+                int n = inputStream.read(array, offset + total, buffer.capacity() - total);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+            }
+            buffer.limit(total);
+            return total;
+        }
+        byte[] chunk = new byte[(int) Math.min(TRANSFER_CHUNK, buffer.capacity())];
+        while (buffer.hasRemaining()) {
+            int n = inputStream.read(chunk, 0, Math.min(chunk.length, buffer.remaining()));
+            if (n < 0) {
+                break;
+            }
+            buffer.put(chunk, 0, n);
+        }
+        buffer.flip();
+        return buffer.limit();
+    }
+}
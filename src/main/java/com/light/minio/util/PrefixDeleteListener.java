@@ -0,0 +1,26 @@
+package com.light.minio.util;
+
+/**
+ * 按前缀删除的进度回调，回调可能来自多个线程
+ */
+public interface PrefixDeleteListener {
+
+    /**
+     * 每完成一批删除后回调
+     *
+     * @param listed  已列出的对象数
+     * @param deleted 已删除（dry-run 时为将要删除）的对象数
+     * @param failed  删除失败的对象数
+     */
+    default void onProgress(long listed, long deleted, long failed) {
+    }
+
+    /**
+     * 单个对象删除失败
+     *
+     * @param objectName 对象名称
+     * @param message    错误信息
+     */
+    default void onError(String objectName, String message) {
+    }
+}
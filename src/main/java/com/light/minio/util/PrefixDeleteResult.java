@@ -0,0 +1,37 @@
+package com.light.minio.util;
+
+import lombok.Getter;
+
+/**
+ * 按前缀删除的结果
+ */
+@Getter
+public class PrefixDeleteResult {
+
+    /**
+     * 列出的对象数
+     */
+    private final long listed;
+
+    /**
+     * 删除成功（dry-run 时为将要删除）的对象数
+     */
+    private final long deleted;
+
+    /**
+     * 删除失败的对象数
+     */
+    private final long failed;
+
+    /**
+     * 是否为 dry-run
+     */
+    private final boolean dryRun;
+
+    public PrefixDeleteResult(long listed, long deleted, long failed, boolean dryRun) {
+        this.listed = listed;
+        this.deleted = deleted;
+        this.failed = failed;
+        this.dryRun = dryRun;
+    }
+}
@@ -0,0 +1,118 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.errors.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按前缀批量删除
+ * 边列出边删除：对象名按 batchSize 分批调用批量删除接口，同时进行 concurrency 批，内存中最多保留 concurrency + 1 批对象名
+ */
+@Slf4j
+public class PrefixDeleter {
+
+    /**
+     * 批量删除接口单次最多 1000 个对象
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final MinioClientPool minioClientPool;
+
+    private final ObjectListing objectListing;
+
+    private final MinioConfig.Delete delete;
+
+    private final ExecutorService executor;
+
+    public PrefixDeleter(MinioClientPool minioClientPool, ObjectListing objectListing, MinioConfig.Delete delete) {
+        this.minioClientPool = minioClientPool;
+        this.objectListing = objectListing;
+        this.delete = delete;
+        this.executor = Executors.newFixedThreadPool(Math.max(delete.getThreads(), 1), new NamedThreadFactory("minio-delete"));
+    }
+
+    /**
+     * 删除前缀下的所有对象。单个对象删除失败不会中止删除，通过 listener 逐个报告；列出对象失败时中止并抛出异常
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀
+     * @param dryRun     为 true 时只列出并计数，不删除
+     * @param listener   进度回调，可为 null
+     * @return PrefixDeleteResult
+     */
+    public PrefixDeleteResult deleteByPrefix(String bucketName, String prefix, boolean dryRun, PrefixDeleteListener listener) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        PrefixDeleteListener callback = listener != null ? listener : new PrefixDeleteListener() {
+        };
+        int batchSize = Math.min(Math.max(delete.getBatchSize(), 1), MAX_BATCH_SIZE);
+        AtomicLong listed = new AtomicLong();
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        TaskBatch batches = new TaskBatch(executor, delete.getConcurrency());
+        Iterator<Item> iterator = objectListing.iterator(bucketName, prefix, null, null);
+        List<DeleteObject> batch = new ArrayList<>(batchSize);
+        try {
+            while (iterator.hasNext()) {
+                batch.add(new DeleteObject(iterator.next().objectName()));
+                listed.incrementAndGet();
+                if (batch.size() == batchSize) {
+                    submit(batches, bucketName, batch, dryRun, listed, deleted, failed, callback);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batches, bucketName, batch, dryRun, listed, deleted, failed, callback);
+            }
+        } catch (MinioRuntimeException e) {
+            batches.await();
+            MinioExceptions.rethrow(e.getCause());
+        }
+        batches.await();
+        return new PrefixDeleteResult(listed.get(), deleted.get(), failed.get(), dryRun);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(TaskBatch batches, String bucketName, List<DeleteObject> objects, boolean dryRun,
+                        AtomicLong listed, AtomicLong deleted, AtomicLong failed, PrefixDeleteListener listener) throws IOException {
+        batches.submit(() -> {
+            long failures = 0;
+            if (!dryRun) {
+                try {
+                    Iterable<Result<DeleteError>> results = minioClientPool.client().removeObjects(RemoveObjectsArgs.builder()
+                            .bucket(bucketName).objects(objects).build());
+                    for (Result<DeleteError> result : results) {
+                        DeleteError error = result.get();
+                        failures++;
+                        listener.onError(error.objectName(), error.message());
+                    }
+                } catch (Exception e) {
+                    // 整批失败，按批内全部对象计为失败
+                    log.error("remove batch of {} objects from {} failed", objects.size(), bucketName, e);
+                    failures = objects.size();
+                    listener.onError(null, e.getMessage());
+                }
+            }
+            failed.addAndGet(failures);
+            deleted.addAndGet(objects.size() - failures);
+            listener.onProgress(listed.get(), deleted.get(), failed.get());
+            return null;
+        });
+    }
+}
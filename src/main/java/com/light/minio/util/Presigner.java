@@ -0,0 +1,236 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地预签名（AWS Signature V4 查询参数签名），不发起任何网络请求
+ * 签名密钥按日期缓存；生成的 URL 按 方法/存储桶/对象/有效期 缓存，已过有效期的 refreshFraction 后重新签名
+ */
+public class Presigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String SERVICE = "s3";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String scheme;
+
+    private final String host;
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final MinioConfig.Presign presign;
+
+    private final LinkedHashMap<String, CachedUrl> cache;
+
+    private volatile SigningKey signingKey;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param endpoint  预签名 URL 使用的地址，例如 http://10.0.0.1:9000
+     * @param accessKey access key
+     * @param secretKey secret key
+     * @param presign   预签名配置
+     */
+    public Presigner(HttpUrl endpoint, String accessKey, String secretKey, MinioConfig.Presign presign) {
+        this.scheme = endpoint.scheme();
+        boolean defaultPort = endpoint.port() == HttpUrl.defaultPort(scheme);
+        // 与 OkHttp 发送的 Host 头一致，IPv6 地址需加方括号
+        String hostName = endpoint.host().indexOf(':') >= 0 ? "[" + endpoint.host() + "]" : endpoint.host();
+        this.host = defaultPort ? hostName : hostName + ":" + endpoint.port();
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.presign = presign;
+        final int maxEntries = Math.max(presign.getCacheMaxEntries(), 0);
+        this.cache = new LinkedHashMap<String, CachedUrl>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 生成预签名 URL，优先使用缓存
+     *
+     * @param method     HTTP 方法
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param expires    有效期（秒）
+     * @return String
+     */
+    public String presign(Method method, String bucketName, String objectName, int expires) {
+        String key = method + "\n" + bucketName + "\n" + objectName + "\n" + expires;
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedUrl cached = cache.get(key);
+            if (cached != null && now < cached.refreshAt) {
+                hits.incrementAndGet();
+                return cached.url;
+            }
+        }
+        misses.incrementAndGet();
+        String url = sign(method, bucketName, objectName, expires, ZonedDateTime.now(ZoneOffset.UTC));
+        if (presign.getCacheMaxEntries() > 0 && presign.getRefreshFraction() > 0) {
+            long refreshAt = now + (long) (TimeUnit.SECONDS.toMillis(expires) * Math.min(presign.getRefreshFraction(), 1.0));
+            synchronized (cache) {
+                cache.put(key, new CachedUrl(url, refreshAt));
+            }
+        }
+        return url;
+    }
+
+    /**
+     * 批量生成 GET 预签名 URL，共用同一签名密钥
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 存储桶里的对象名称
+     * @param expires     有效期（秒）
+     * @return 对象名称到 URL 的映射，保持 objectNames 的顺序
+     */
+    public Map<String, String> presignAll(String bucketName, Collection<String> objectNames, int expires) {
+        Map<String, String> urls = new LinkedHashMap<>(objectNames.size() * 2);
+        for (String objectName : objectNames) {
+            urls.put(objectName, presign(Method.GET, bucketName, objectName, expires));
+        }
+        return urls;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 以指定的签名时间生成预签名 URL，不使用缓存
+     *
+     * @param time 签名时间（UTC）
+     */
+    String sign(Method method, String bucketName, String objectName, int expires, ZonedDateTime time) {
+        String date = DATE_FORMAT.format(time);
+        String amzDate = AMZ_DATE_FORMAT.format(time);
+        String region = presign.getRegion();
+        String scope = date + "/" + region + "/" + SERVICE + "/aws4_request";
+        String path = "/" + encode(bucketName, false) + "/" + encode(objectName, true);
+        // 参数已按名称排序
+        String query = "X-Amz-Algorithm=" + ALGORITHM
+                + "&X-Amz-Credential=" + encode(accessKey + "/" + scope, false)
+                + "&X-Amz-Date=" + amzDate
+                + "&X-Amz-Expires=" + expires
+                + "&X-Amz-SignedHeaders=host";
+        String canonicalRequest = method.name() + "\n" + path + "\n" + query + "\n"
+                + "host:" + host + "\n\n" + "host\n" + UNSIGNED_PAYLOAD;
+        try {
+            String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                    + hex(MessageDigest.getInstance("SHA-256").digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+            String signature = hex(hmac(signingKey(date, region), stringToSign));
+            return scheme + "://" + host + path + "?" + query + "&X-Amz-Signature=" + signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("failed to presign " + bucketName + "/" + objectName, e);
+        }
+    }
+
+    /**
+     * 签名密钥只与日期和区域有关，同一天内复用
+     */
+    private byte[] signingKey(String date, String region) throws GeneralSecurityException {
+        SigningKey current = signingKey;
+        if (current != null && current.date.equals(date) && current.region.equals(region)) {
+            return current.key;
+        }
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        signingKey = new SigningKey(date, region, key);
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 按 S3 规则进行 URI 编码
+     *
+     * @param value     原始值
+     * @param keepSlash 是否保留 '/'
+     */
+    private static String encode(String value, boolean keepSlash) {
+        StringBuilder encoded = new StringBuilder(value.length() + 16);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlash && c == '/')) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(HEX[(b >> 4) & 0xf])).append(Character.toUpperCase(HEX[b & 0xf]));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static final class SigningKey {
+        private final String date;
+        private final String region;
+        private final byte[] key;
+
+        private SigningKey(String date, String region, byte[] key) {
+            this.date = date;
+            this.region = region;
+            this.key = key;
+        }
+    }
+
+    private static final class CachedUrl {
+        private final String url;
+        private final long refreshAt;
+
+        private CachedUrl(String url, long refreshAt) {
+            this.url = url;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.light.minio.util;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 条件读取的请求头
+ * 7.1.0 的 getObject(GetObjectArgs) 不发送 matchETag/notMatchETag（只有 CopySource 会转换为 x-amz-copy-source-if-*），
+ * GET 的条件通过 extraHeaders 传递
+ */
+final class ReadConditions {
+
+    private ReadConditions() {
+    }
+
+    /**
+     * ETag 不一致时服务端返回 412
+     */
+    static Map<String, String> ifMatch(String etag) {
+        return Collections.singletonMap("If-Match", etag);
+    }
+
+    /**
+     * ETag 一致时服务端返回 304，见 {@link MinioExceptions#isNotModified(Throwable)}
+     */
+    static Map<String, String> ifNoneMatch(String etag) {
+        return Collections.singletonMap("If-None-Match", etag);
+    }
+}
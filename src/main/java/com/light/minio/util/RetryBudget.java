@@ -0,0 +1,36 @@
+package com.light.minio.util;
+
+/**
+ * 重试预算：每次成功的请求存入 ratio 个令牌，每次重试或对冲请求消耗一个令牌，令牌数不超过 maxTokens
+ * 服务端过载导致大量失败时令牌很快耗尽，额外请求不超过正常请求的 ratio 倍，避免放大过载
+ */
+class RetryBudget {
+
+    private final double ratio;
+
+    private final double maxTokens;
+
+    private double tokens;
+
+    RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    synchronized void onSuccess() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    synchronized double available() {
+        return tokens;
+    }
+}
@@ -0,0 +1,26 @@
+package com.light.minio.util;
+
+/**
+ * S3 Select 查询的进度回调，在读取结果的线程上调用
+ * 进度按客户端已读取的结果字节数计算，不向服务端请求进度消息
+ */
+public interface SelectListener {
+
+    /**
+     * 每读取约 1 MiB 结果后回调
+     *
+     * @param bytesReturned 已读取的结果字节数
+     */
+    default void onProgress(long bytesReturned) {
+    }
+
+    /**
+     * 结果读取完毕，服务端返回统计信息后回调
+     *
+     * @param bytesScanned   服务端扫描的字节数
+     * @param bytesProcessed 服务端处理（解压后）的字节数
+     * @param bytesReturned  返回的结果字节数
+     */
+    default void onStats(long bytesScanned, long bytesProcessed, long bytesReturned) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.light.minio.util;
+
+import io.minio.errors.*;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并相同 key 的并发调用：同一时刻只有第一个调用方真正执行，其余调用方等待并共享其结果（包括异常）
+ * 调用完成后立即移除，不缓存结果
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * 实际执行的调用
+     */
+    public interface Loader<V> {
+        V load() throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException;
+    }
+
+    private final boolean enabled;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+
+    private final AtomicLong shared = new AtomicLong();
+
+    /**
+     * @param enabled 为 false 时每次调用都直接执行，不合并
+     */
+    public SingleFlight(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 执行调用，相同 key 已有调用进行中时等待其结果
+     *
+     * @param key    合并的 key
+     * @param loader 调用
+     * @return 调用结果
+     */
+    public V run(K key, Loader<V> loader) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        if (!enabled) {
+            executed.incrementAndGet();
+            return loader.load();
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            shared.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (Exception e) {
+                MinioExceptions.rethrow(e);
+                return null;
+            }
+        }
+        executed.incrementAndGet();
+        try {
+            V value = loader.load();
+            future.complete(value);
+            return value;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            MinioExceptions.rethrow(t);
+            return null;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 实际执行的调用次数
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * 共享了其它调用结果的次数
+     */
+    public long getShared() {
+        return shared.get();
+    }
+
+    /**
+     * 当前进行中的 key 数
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
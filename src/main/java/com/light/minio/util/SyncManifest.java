@@ -0,0 +1,106 @@
+package com.light.minio.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 目录同步清单：相对路径 -> 上次同步时的文件大小、修改时间和对象 ETag
+ * 以 Properties 格式保存，写入临时文件后替换，避免中断时留下不完整的清单
+ */
+@Slf4j
+class SyncManifest {
+
+    private final Path path;
+
+    private final boolean existed;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private SyncManifest(Path path, boolean existed) {
+        this.path = path;
+        this.existed = existed;
+    }
+
+    /**
+     * 读取清单，文件不存在或损坏时返回空清单
+     */
+    static SyncManifest load(Path path) {
+        if (!Files.exists(path)) {
+            return new SyncManifest(path, false);
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("read sync manifest {} failed", path, e);
+            return new SyncManifest(path, false);
+        }
+        SyncManifest manifest = new SyncManifest(path, true);
+        for (String name : properties.stringPropertyNames()) {
+            String[] fields = properties.getProperty(name).split(" ", 3);
+            if (fields.length == 3) {
+                manifest.entries.put(name, new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * 清单文件是否存在，不存在时需要与服务端逐个比较
+     */
+    boolean existed() {
+        return existed;
+    }
+
+    Entry get(String name) {
+        return entries.get(name);
+    }
+
+    void put(String name, long size, long lastModified, String etag) {
+        entries.put(name, new Entry(size, lastModified, etag == null || etag.isEmpty() ? "-" : etag));
+    }
+
+    void remove(String name) {
+        entries.remove(name);
+    }
+
+    Set<String> names() {
+        return entries.keySet();
+    }
+
+    void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            properties.setProperty(entry.getKey(), value.size + " " + value.lastModified + " " + value.etag);
+        }
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, null);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static final class Entry {
+        final long size;
+        final long lastModified;
+        final String etag;
+
+        private Entry(long size, long lastModified, String etag) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.light.minio.util;
+
+import lombok.Getter;
+
+/**
+ * 目录同步的结果
+ */
+@Getter
+public class SyncResult {
+
+    /**
+     * 比较的文件或对象数
+     */
+    private final long scanned;
+
+    /**
+     * 上传或下载的文件数
+     */
+    private final long transferred;
+
+    /**
+     * 未变化而跳过的文件数
+     */
+    private final long skipped;
+
+    /**
+     * 删除的对象（上传方向）或本地文件（下载方向）数
+     */
+    private final long deleted;
+
+    /**
+     * 传输的字节数
+     */
+    private final long bytesTransferred;
+
+    public SyncResult(long scanned, long transferred, long skipped, long deleted, long bytesTransferred) {
+        this.scanned = scanned;
+        this.transferred = transferred;
+        this.skipped = skipped;
+        this.deleted = deleted;
+        this.bytesTransferred = bytesTransferred;
+    }
+}
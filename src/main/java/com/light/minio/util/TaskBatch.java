@@ -0,0 +1,120 @@
+package com.light.minio.util;
+
+import io.minio.errors.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一组在共享线程池上执行的任务，同时执行的任务数不超过 concurrency，任一任务失败后不再提交新任务。
+ * 取消不中断执行中的任务（中断会关闭任务共用的 FileChannel 等资源），只让未开始的任务直接结束；
+ * 耗时较长的任务可以通过 {@link #isCancelled()} 提前结束
+ */
+class TaskBatch {
+
+    private final ExecutorService executor;
+
+    private final Semaphore permits;
+
+    private final List<Future<Void>> futures = new ArrayList<>();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private volatile boolean cancelled;
+
+    TaskBatch(ExecutorService executor, int concurrency) {
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(concurrency, 1));
+    }
+
+    /**
+     * 提交任务，已有 concurrency 个任务在执行时阻塞等待
+     *
+     * @param task 任务
+     * @return 已有任务失败时返回 false，任务不会被提交
+     */
+    boolean submit(Callable<Void> task) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException("interrupted");
+        }
+        if (isCancelled()) {
+            permits.release();
+            return false;
+        }
+        Callable<Void> scoped = TransferScheduler.propagate(MinioInstrumentation.propagate(task));
+        futures.add(executor.submit(() -> {
+            try {
+                if (isCancelled()) {
+                    return null;
+                }
+                return scoped.call();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                permits.release();
+            }
+        }));
+        return true;
+    }
+
+    /**
+     * 等待所有已提交的任务完成，任一任务失败时取消其余任务，等执行中的任务结束后抛出其异常
+     */
+    void await() throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException("interrupted");
+        } catch (ExecutionException e) {
+            cancel();
+            drain();
+            MinioExceptions.rethrow(e);
+        }
+    }
+
+    /**
+     * 已有任务失败或已取消
+     */
+    boolean isCancelled() {
+        return cancelled || failure.get() != null;
+    }
+
+    /**
+     * 未开始的任务在开始时检查取消标记直接结束，不调用 Future.cancel：
+     * 执行中的任务被 cancel 后 get 立即返回，无法等待其结束
+     */
+    private void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 等待所有任务结束，忽略其结果；被中断时不再等待
+     */
+    private void drain() {
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // 只抛出第一个失败
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.light.minio.util;
+
+/**
+ * 传输优先级，按声明顺序从高到低
+ */
+public enum TransferClass {
+    /**
+     * 交互式请求，例如 downloadFile
+     */
+    INTERACTIVE,
+    /**
+     * 普通请求，未指定时的默认值
+     */
+    NORMAL,
+    /**
+     * 后台批量任务，例如 uploadObject、downloadObject、目录同步
+     */
+    BULK
+}
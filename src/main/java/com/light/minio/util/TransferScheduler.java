@@ -0,0 +1,400 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 传输带宽调度
+ * 请求体和响应体按 chunkSize 分块计量，每块需同时从所属优先级和全局的令牌桶取得令牌：
+ * 高优先级有传输在等待全局令牌时，低优先级不能取令牌，只使用剩余带宽；
+ * 同一优先级的传输按到达顺序轮流取令牌，平分该优先级的带宽。速率可在运行时调整。
+ * 传输所属的优先级在发出请求的线程上通过 {@link #use(TransferClass)} 指定，未指定时为 NORMAL。
+ */
+public class TransferScheduler {
+
+    private static final ThreadLocal<TransferClass> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 被更高优先级阻塞时的最长等待时间，之后重新检查
+     */
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final TransferClass[] CLASSES = TransferClass.values();
+
+    private final boolean enabled;
+
+    private final int chunkSize;
+
+    private final long burstNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private final TokenBucket global;
+
+    private final TokenBucket[] buckets = new TokenBucket[CLASSES.length];
+
+    private final Deque<Object>[] queues;
+
+    private final AtomicLong[] bytes = new AtomicLong[CLASSES.length];
+
+    private final AtomicLong[] waitNanos = new AtomicLong[CLASSES.length];
+
+    @SuppressWarnings("unchecked")
+    public TransferScheduler(MinioConfig.Throttle throttle) {
+        this.enabled = throttle.isEnabled();
+        this.chunkSize = Math.max(throttle.getChunkSize(), 1024);
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(throttle.getBurst(), 1));
+        this.global = new TokenBucket(throttle.getGlobalRate());
+        this.queues = new Deque[CLASSES.length];
+        for (TransferClass transferClass : CLASSES) {
+            int i = transferClass.ordinal();
+            buckets[i] = new TokenBucket(throttle.rate(transferClass));
+            queues[i] = new ArrayDeque<>();
+            bytes[i] = new AtomicLong();
+            waitNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * 指定当前线程之后发出的请求所属的优先级，关闭返回值时恢复原值
+     * 例如：try (TransferScheduler.Mark mark = TransferScheduler.use(TransferClass.BULK)) { ... }
+     *
+     * @param transferClass 优先级
+     * @return Mark
+     */
+    public static Mark use(TransferClass transferClass) {
+        TransferClass previous = CURRENT.get();
+        CURRENT.set(transferClass);
+        return () -> CURRENT.set(previous);
+    }
+
+    /**
+     * 当前线程未指定优先级时才指定，用于方法的默认优先级，调用方显式指定的优先级优先
+     */
+    static Mark useDefault(TransferClass transferClass) {
+        return CURRENT.get() != null ? () -> {
+        } : use(transferClass);
+    }
+
+    /**
+     * @return 当前线程的优先级，未指定时为 NORMAL
+     */
+    public static TransferClass current() {
+        TransferClass transferClass = CURRENT.get();
+        return transferClass != null ? transferClass : TransferClass.NORMAL;
+    }
+
+    /**
+     * 让任务在执行线程上沿用提交线程的优先级，用于线程池中发出的请求
+     */
+    static <T> Callable<T> propagate(Callable<T> task) {
+        TransferClass transferClass = CURRENT.get();
+        if (transferClass == null) {
+            return task;
+        }
+        return () -> {
+            TransferClass previous = CURRENT.get();
+            CURRENT.set(transferClass);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * 取得传输 n 个字节的令牌，令牌不足时阻塞
+     *
+     * @param transferClass 优先级
+     * @param n             字节数
+     */
+    public void acquire(TransferClass transferClass, long n) throws InterruptedIOException {
+        if (!enabled || n <= 0) {
+            return;
+        }
+        int index = transferClass.ordinal();
+        Object ticket = new Object();
+        long waitStart = 0;
+        lock.lock();
+        try {
+            queues[index].addLast(ticket);
+            while (true) {
+                long now = System.nanoTime();
+                long wait = waitFor(index, ticket, now);
+                if (wait <= 0) {
+                    buckets[index].take(n, now);
+                    global.take(n, now);
+                    break;
+                }
+                if (waitStart == 0) {
+                    waitStart = now;
+                }
+                try {
+                    changed.awaitNanos(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted");
+                }
+            }
+        } finally {
+            queues[index].remove(ticket);
+            changed.signalAll();
+            lock.unlock();
+        }
+        bytes[index].addAndGet(n);
+        if (waitStart != 0) {
+            waitNanos[index].addAndGet(System.nanoTime() - waitStart);
+        }
+    }
+
+    /**
+     * 调整全局速率
+     *
+     * @param bytesPerSecond 每秒字节数，小于等于 0 表示不限速
+     */
+    public void setGlobalRate(long bytesPerSecond) {
+        lock.lock();
+        try {
+            global.setRate(bytesPerSecond, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调整指定优先级的速率
+     *
+     * @param transferClass  优先级
+     * @param bytesPerSecond 每秒字节数，小于等于 0 表示不限速
+     */
+    public void setRate(TransferClass transferClass, long bytesPerSecond) {
+        lock.lock();
+        try {
+            buckets[transferClass.ordinal()].setRate(bytesPerSecond, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getGlobalRate() {
+        lock.lock();
+        try {
+            return global.rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRate(TransferClass transferClass) {
+        lock.lock();
+        try {
+            return buckets[transferClass.ordinal()].rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 已传输的字节数
+     */
+    public long getBytes(TransferClass transferClass) {
+        return bytes[transferClass.ordinal()].get();
+    }
+
+    /**
+     * 因限速累计等待的时间（毫秒）
+     */
+    public long getWaitMillis(TransferClass transferClass) {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos[transferClass.ordinal()].get());
+    }
+
+    /**
+     * 对请求体和响应体限速的 OkHttp 拦截器，未启用时返回 null
+     *
+     * @return Interceptor
+     */
+    public Interceptor interceptor() {
+        return enabled ? new ThrottlingInterceptor() : null;
+    }
+
+    /**
+     * 距离可以取令牌还需等待的时间，0 表示可以立即取
+     */
+    private long waitFor(int index, Object ticket, long now) {
+        if (queues[index].peekFirst() != ticket) {
+            // 同一优先级按到达顺序轮流
+            return POLL_NANOS;
+        }
+        long wait = buckets[index].waitNanos(now);
+        if (wait > 0) {
+            return wait;
+        }
+        for (int i = 0; i < index; i++) {
+            if (!queues[i].isEmpty() && buckets[i].waitNanos(now) <= 0) {
+                // 更高优先级正在等待全局令牌
+                return Math.max(global.waitNanos(now), POLL_NANOS);
+            }
+        }
+        return global.waitNanos(now);
+    }
+
+    /**
+     * 令牌桶，容量为 burst 时间内的速率；令牌可以透支，透支后需等待补足
+     */
+    private final class TokenBucket {
+
+        private long rate;
+
+        private double tokens;
+
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(long rate) {
+            this.rate = rate;
+            this.tokens = capacity();
+        }
+
+        private double capacity() {
+            return rate * (double) burstNanos / TimeUnit.SECONDS.toNanos(1);
+        }
+
+        private void refill(long now) {
+            if (rate > 0) {
+                tokens = Math.min(capacity(), tokens + (now - refilledAt) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+            }
+            refilledAt = now;
+        }
+
+        private long waitNanos(long now) {
+            if (rate <= 0) {
+                return 0;
+            }
+            refill(now);
+            return tokens > 0 ? 0 : (long) Math.ceil(-tokens * TimeUnit.SECONDS.toNanos(1) / rate) + 1;
+        }
+
+        private void take(long n, long now) {
+            if (rate > 0) {
+                refill(now);
+                tokens -= n;
+            }
+        }
+
+        private void setRate(long rate, long now) {
+            refill(now);
+            this.rate = rate;
+            tokens = rate > 0 ? Math.min(tokens, capacity()) : 0;
+        }
+    }
+
+    /**
+     * 按发出请求时线程的优先级，对请求体写入和响应体读取分块取令牌
+     */
+    private final class ThrottlingInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            TransferClass transferClass = current();
+            Request request = chain.request();
+            RequestBody body = request.body();
+            if (body != null) {
+                request = request.newBuilder().method(request.method(), new ThrottledRequestBody(body, transferClass)).build();
+            }
+            Response response = chain.proceed(request);
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                return response;
+            }
+            BufferedSource source = Okio.buffer(new ForwardingSource(responseBody.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long n = super.read(sink, Math.min(byteCount, chunkSize));
+                    if (n > 0) {
+                        acquire(transferClass, n);
+                    }
+                    return n;
+                }
+            });
+            return response.newBuilder()
+                    .body(ResponseBody.create(responseBody.contentType(), responseBody.contentLength(), source))
+                    .build();
+        }
+    }
+
+    private final class ThrottledRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+
+        private final TransferClass transferClass;
+
+        private ThrottledRequestBody(RequestBody delegate, TransferClass transferClass) {
+            this.delegate = delegate;
+            this.transferClass = transferClass;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            BufferedSink throttled = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    while (byteCount > 0) {
+                        long n = Math.min(byteCount, chunkSize);
+                        acquire(transferClass, n);
+                        super.write(source, n);
+                        byteCount -= n;
+                    }
+                }
+            });
+            delegate.writeTo(throttled);
+            throttled.emit();
+        }
+    }
+
+    /**
+     * 恢复线程原优先级
+     */
+    public interface Mark extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
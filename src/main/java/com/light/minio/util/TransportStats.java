@@ -0,0 +1,46 @@
+package com.light.minio.util;
+
+import lombok.Getter;
+import okhttp3.OkHttpClient;
+
+/**
+ * HTTP 连接池与请求的运行时状态快照
+ */
+@Getter
+public class TransportStats {
+
+    /**
+     * 连接池中的连接数
+     */
+    private final int connectionCount;
+
+    /**
+     * 连接池中的空闲连接数
+     */
+    private final int idleConnectionCount;
+
+    /**
+     * 经 MinioClientPool 执行、尚未返回的请求数；MinioClient 只发同步请求，OkHttp 的调度器不参与计数
+     */
+    private final int outstandingRequests;
+
+    private TransportStats(OkHttpClient httpClient, MinioClientPool pool) {
+        this.connectionCount = httpClient.connectionPool().connectionCount();
+        this.idleConnectionCount = httpClient.connectionPool().idleConnectionCount();
+        int outstanding = 0;
+        for (MinioClientPool.Node node : pool.getNodes()) {
+            outstanding += node.getOutstanding().get();
+        }
+        this.outstandingRequests = outstanding;
+    }
+
+    public static TransportStats of(OkHttpClient httpClient, MinioClientPool pool) {
+        return new TransportStats(httpClient, pool);
+    }
+
+    @Override
+    public String toString() {
+        return "TransportStats{connections=" + connectionCount + ", idle=" + idleConnectionCount
+                + ", outstanding=" + outstandingRequests + "}";
+    }
+}
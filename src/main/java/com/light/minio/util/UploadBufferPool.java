@@ -0,0 +1,214 @@
+package com.light.minio.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 未知大小流上传的分片缓冲区池
+ * 缓冲区大小固定，用完归还后复用；已分配（空闲 + 使用中）的总内存不超过 maxBytes，
+ * 达到上限时等待其他上传归还缓冲区，超过等待时间（为 0 时立即）抛出 IOException。
+ */
+public class UploadBufferPool {
+
+    private final int bufferSize;
+
+    private final long maxBytes;
+
+    private final boolean direct;
+
+    private final long waitTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Deque<ByteBuffer> idle = new ArrayDeque<>();
+
+    private long allocatedBytes;
+
+    private long inUseBytes;
+
+    private final AtomicLong acquires = new AtomicLong();
+
+    private final AtomicLong reuses = new AtomicLong();
+
+    private final AtomicLong waits = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * @param bufferSize  单个缓冲区大小（字节）
+     * @param maxBytes    缓冲区总内存上限（字节），至少能分配一个缓冲区
+     * @param direct      是否使用堆外内存
+     * @param waitTimeout 达到上限时的最长等待时间（毫秒），0 表示不等待
+     */
+    public UploadBufferPool(int bufferSize, long maxBytes, boolean direct, long waitTimeout) {
+        this.bufferSize = bufferSize;
+        this.maxBytes = Math.max(maxBytes, bufferSize);
+        this.direct = direct;
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(waitTimeout, 0));
+    }
+
+    /**
+     * 取一个缓冲区，position 为 0，limit 为 capacity
+     *
+     * @return 缓冲区，用完后必须调用 release 归还
+     */
+    public ByteBuffer acquire() throws IOException {
+        acquires.incrementAndGet();
+        long waitStart = 0;
+        ByteBuffer buffer;
+        lock.lock();
+        try {
+            long remaining = waitTimeoutNanos;
+            while (idle.isEmpty() && allocatedBytes + bufferSize > maxBytes) {
+                if (waitStart == 0) {
+                    waitStart = System.nanoTime();
+                    waits.incrementAndGet();
+                }
+                if (remaining <= 0) {
+                    rejections.incrementAndGet();
+                    throw new IOException("upload buffer pool exhausted: " + inUseBytes + " of " + maxBytes + " bytes in use");
+                }
+                try {
+                    remaining = released.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted");
+                }
+            }
+            buffer = idle.pollFirst();
+            if (buffer == null) {
+                allocatedBytes += bufferSize;
+            }
+            inUseBytes += bufferSize;
+        } finally {
+            lock.unlock();
+            if (waitStart != 0) {
+                waitNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+        }
+        if (buffer != null) {
+            reuses.incrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+        // 在锁外分配，分配失败时退回占用的额度
+        try {
+            return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        } catch (OutOfMemoryError e) {
+            lock.lock();
+            try {
+                allocatedBytes -= bufferSize;
+                inUseBytes -= bufferSize;
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw new IOException("failed to allocate upload buffer of " + bufferSize + " bytes", e);
+        }
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer acquire 返回的缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        lock.lock();
+        try {
+            inUseBytes -= bufferSize;
+            idle.offerFirst(buffer);
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放所有空闲缓冲区
+     */
+    public void trim() {
+        lock.lock();
+        try {
+            allocatedBytes -= (long) idle.size() * bufferSize;
+            idle.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public long getAllocatedBytes() {
+        lock.lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getInUseBytes() {
+        lock.lock();
+        try {
+            return inUseBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAcquires() {
+        return acquires.get();
+    }
+
+    public long getReuses() {
+        return reuses.get();
+    }
+
+    /**
+     * 因达到内存上限而等待的次数
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    /**
+     * 累计等待时间（毫秒）
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * 等待超时或不等待时被拒绝的次数
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    public double getReuseRatio() {
+        long total = acquires.get();
+        return total == 0 ? 0 : (double) reuses.get() / total;
+    }
+}
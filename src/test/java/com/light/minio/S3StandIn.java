@@ -0,0 +1,692 @@
+package com.light.minio;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内的 S3 兼容服务，只实现 MinioClientUtils 用到的接口，数据保存在内存中，不校验签名
+ * 每个请求在处理前等待 latencyMillis，请求体和响应体按 bytesPerSecond 限速，用于模拟网络延迟和带宽；
+ * 服务端复制（CopyObject、UploadPartCopy）同样按复制的字节数以 bytesPerSecond 计时，不会比上传更快
+ */
+public class S3StandIn implements AutoCloseable {
+
+    private static final String HEALTH_PATH = "/minio/health/live";
+
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final Pattern KEY = Pattern.compile("<Key>(.*?)</Key>", Pattern.DOTALL);
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final int CHUNK = 64 * 1024;
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long latencyMillis;
+
+    private final long bytesPerSecond;
+
+    private final ConcurrentMap<String, ConcurrentNavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, MultipartUpload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param latencyMillis  每个请求的额外延迟（毫秒）
+     * @param bytesPerSecond 请求体和响应体的传输速率，小于等于 0 表示不限速
+     */
+    public S3StandIn(long latencyMillis, long bytesPerSecond) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 已处理的请求数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public void createBucket(String bucket) {
+        buckets.putIfAbsent(bucket, new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * 不经过 HTTP 直接写入对象，用于准备数据
+     */
+    public void putObject(String bucket, String key, byte[] data) {
+        putObject(bucket, key, data, System.currentTimeMillis());
+    }
+
+    /**
+     * 不经过 HTTP 直接写入对象，并指定最后修改时间
+     */
+    public void putObject(String bucket, String key, byte[] data, long lastModified) {
+        createBucket(bucket);
+        buckets.get(bucket).put(key, new StoredObject(data, md5(data), "application/octet-stream", lastModified));
+    }
+
+    /**
+     * 不经过 HTTP 直接读取对象，不存在时返回 null
+     */
+    public byte[] getObject(String bucket, String key) {
+        Map<String, StoredObject> objects = buckets.get(bucket);
+        StoredObject object = objects == null ? null : objects.get(key);
+        return object == null ? null : object.data;
+    }
+
+    /**
+     * 存储桶中的所有对象名，按字典序
+     */
+    public List<String> objectNames(String bucket) {
+        Map<String, StoredObject> objects = buckets.get(bucket);
+        return objects == null ? Collections.<String>emptyList() : new ArrayList<>(objects.keySet());
+    }
+
+    public int objectCount(String bucket) {
+        Map<String, StoredObject> objects = buckets.get(bucket);
+        return objects == null ? 0 : objects.size();
+    }
+
+    /**
+     * 未完成的分片上传数
+     */
+    public int uploadCount() {
+        return uploads.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            dispatch(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            error(exchange, 500, "InternalError", String.valueOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (HEALTH_PATH.equals(path)) {
+            send(exchange, 200, null);
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        String bucket = slash < 0 ? trimmed : trimmed.substring(0, slash);
+        String key = slash < 0 || slash == trimmed.length() - 1 ? null : trimmed.substring(slash + 1);
+        if (bucket.isEmpty()) {
+            error(exchange, 501, "NotImplemented", "service level requests are not supported");
+            return;
+        }
+        if (key == null) {
+            handleBucket(exchange, method, bucket, query);
+        } else {
+            handleObject(exchange, method, bucket, key, query);
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket, Map<String, String> query) throws Exception {
+        ConcurrentNavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        if ("PUT".equals(method)) {
+            readBody(exchange);
+            createBucket(bucket);
+            send(exchange, 200, null);
+            return;
+        }
+        if (query.containsKey("location")) {
+            xml(exchange, 200, "<LocationConstraint xmlns=\"" + NAMESPACE + "\">us-east-1</LocationConstraint>");
+            return;
+        }
+        if (objects == null) {
+            error(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+            return;
+        }
+        switch (method) {
+            case "HEAD":
+                send(exchange, 200, null);
+                return;
+            case "DELETE":
+                if (!objects.isEmpty()) {
+                    error(exchange, 409, "BucketNotEmpty", "The bucket you tried to delete is not empty");
+                    return;
+                }
+                buckets.remove(bucket);
+                send(exchange, 204, null);
+                return;
+            case "GET":
+                if (query.containsKey("uploads")) {
+                    listUploads(exchange, bucket);
+                    return;
+                }
+                list(exchange, bucket, objects, query);
+                return;
+            case "POST":
+                if (query.containsKey("delete")) {
+                    String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+                    Matcher matcher = KEY.matcher(body);
+                    while (matcher.find()) {
+                        objects.remove(unescape(matcher.group(1)));
+                    }
+                    xml(exchange, 200, "<DeleteResult xmlns=\"" + NAMESPACE + "\"></DeleteResult>");
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        error(exchange, 501, "NotImplemented", method + " on bucket is not supported");
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String bucket, String key, Map<String, String> query) throws Exception {
+        ConcurrentNavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        if (objects == null) {
+            readBody(exchange);
+            error(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+            return;
+        }
+        Headers headers = exchange.getRequestHeaders();
+        switch (method) {
+            case "HEAD":
+            case "GET": {
+                if (query.containsKey("uploadId")) {
+                    listParts(exchange, bucket, key, query.get("uploadId"));
+                    return;
+                }
+                StoredObject object = objects.get(key);
+                if (object == null) {
+                    error(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+                    return;
+                }
+                get(exchange, object, "HEAD".equals(method));
+                return;
+            }
+            case "PUT": {
+                String copySource = headers.getFirst("x-amz-copy-source");
+                if (query.containsKey("uploadId")) {
+                    MultipartUpload upload = uploads.get(query.get("uploadId"));
+                    if (upload == null) {
+                        readBody(exchange);
+                        error(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+                        return;
+                    }
+                    int partNumber = Integer.parseInt(query.get("partNumber"));
+                    byte[] data;
+                    if (copySource != null) {
+                        readBody(exchange);
+                        data = copySource(exchange, copySource, headers.getFirst("x-amz-copy-source-range"));
+                        if (data == null) {
+                            return;
+                        }
+                    } else {
+                        data = readBody(exchange);
+                    }
+                    String etag = md5(data);
+                    upload.parts.put(partNumber, data);
+                    if (copySource != null) {
+                        xml(exchange, 200, "<CopyPartResult xmlns=\"" + NAMESPACE + "\"><LastModified>" + ISO_DATE.format(Instant.now())
+                                + "</LastModified><ETag>\"" + etag + "\"</ETag></CopyPartResult>");
+                    } else {
+                        exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+                        send(exchange, 200, null);
+                    }
+                    return;
+                }
+                if (copySource != null) {
+                    readBody(exchange);
+                    byte[] data = copySource(exchange, copySource, null);
+                    if (data == null) {
+                        return;
+                    }
+                    StoredObject object = new StoredObject(data, md5(data), contentType(headers));
+                    objects.put(key, object);
+                    xml(exchange, 200, "<CopyObjectResult xmlns=\"" + NAMESPACE + "\"><LastModified>" + ISO_DATE.format(Instant.ofEpochMilli(object.lastModified))
+                            + "</LastModified><ETag>\"" + object.etag + "\"</ETag></CopyObjectResult>");
+                    return;
+                }
+                byte[] data = readBody(exchange);
+                StoredObject object = new StoredObject(data, md5(data), contentType(headers));
+                objects.put(key, object);
+                exchange.getResponseHeaders().set("ETag", "\"" + object.etag + "\"");
+                send(exchange, 200, null);
+                return;
+            }
+            case "POST": {
+                if (query.containsKey("uploads")) {
+                    readBody(exchange);
+                    String uploadId = UUID.randomUUID().toString();
+                    uploads.put(uploadId, new MultipartUpload(bucket, key, contentType(headers)));
+                    xml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Bucket>" + escape(bucket) + "</Bucket><Key>"
+                            + escape(key) + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                    return;
+                }
+                if (query.containsKey("uploadId")) {
+                    readBody(exchange);
+                    MultipartUpload upload = uploads.remove(query.get("uploadId"));
+                    if (upload == null) {
+                        error(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+                        return;
+                    }
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    for (Map.Entry<Integer, byte[]> part : upload.parts.entrySet()) {
+                        if (part.getValue().length < MIN_PART_SIZE && !part.getKey().equals(upload.parts.lastKey())) {
+                            // 与服务端一致：除最后一个分片外每个分片至少 5 MiB，上传保留
+                            uploads.put(query.get("uploadId"), upload);
+                            error(exchange, 400, "EntityTooSmall", "Your proposed upload is smaller than the minimum allowed object size.");
+                            return;
+                        }
+                        content.write(part.getValue());
+                    }
+                    byte[] data = content.toByteArray();
+                    String etag = md5(data) + "-" + upload.parts.size();
+                    objects.put(key, new StoredObject(data, etag, upload.contentType));
+                    xml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Location>" + getEndpoint() + "/" + escape(bucket) + "/" + escape(key)
+                            + "</Location><Bucket>" + escape(bucket) + "</Bucket><Key>" + escape(key) + "</Key><ETag>\"" + etag
+                            + "\"</ETag></CompleteMultipartUploadResult>");
+                    return;
+                }
+                break;
+            }
+            case "DELETE": {
+                if (query.containsKey("uploadId")) {
+                    if (uploads.remove(query.get("uploadId")) == null) {
+                        readBody(exchange);
+                        error(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+                        return;
+                    }
+                } else {
+                    objects.remove(key);
+                }
+                send(exchange, 204, null);
+                return;
+            }
+            default:
+                break;
+        }
+        readBody(exchange);
+        error(exchange, 501, "NotImplemented", method + " on object is not supported");
+    }
+
+    private void get(HttpExchange exchange, StoredObject object, boolean head) throws Exception {
+        Headers request = exchange.getRequestHeaders();
+        Headers response = exchange.getResponseHeaders();
+        String ifMatch = request.getFirst("If-Match");
+        if (ifMatch != null && !stripQuotes(ifMatch).equals(object.etag)) {
+            error(exchange, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+        response.set("ETag", "\"" + object.etag + "\"");
+        response.set("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(object.lastModified)));
+        response.set("Content-Type", object.contentType);
+        response.set("Accept-Ranges", "bytes");
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null && stripQuotes(ifNoneMatch).equals(object.etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        int start = 0;
+        int end = object.data.length - 1;
+        int status = 200;
+        String range = request.getFirst("Range");
+        if (range != null && !head) {
+            Matcher matcher = RANGE.matcher(range);
+            if (matcher.matches()) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, object.data.length - Integer.parseInt(matcher.group(2)));
+                } else {
+                    start = Integer.parseInt(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                    }
+                }
+                if (start > end) {
+                    error(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                    return;
+                }
+                status = 206;
+                response.set("Content-Range", "bytes " + start + "-" + end + "/" + object.data.length);
+            }
+        }
+        int length = end - start + 1;
+        response.set("Content-Length", String.valueOf(length));
+        if (head) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        write(exchange.getResponseBody(), object.data, start, length);
+    }
+
+    private void list(HttpExchange exchange, String bucket, ConcurrentNavigableMap<String, StoredObject> objects, Map<String, String> query) throws Exception {
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.get("delimiter");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String marker = query.get("continuation-token");
+        if (marker == null) {
+            marker = query.get("start-after");
+        }
+        NavigableMap<String, StoredObject> candidates = objects;
+        if (marker != null && !marker.isEmpty() && marker.compareTo(prefix) >= 0) {
+            candidates = objects.tailMap(marker, false);
+        } else if (!prefix.isEmpty()) {
+            candidates = objects.tailMap(prefix, true);
+        }
+        StringBuilder contents = new StringBuilder();
+        StringBuilder commonPrefixes = new StringBuilder();
+        int count = 0;
+        String last = null;
+        boolean truncated = false;
+        String skipPrefix = null;
+        for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (skipPrefix != null && key.startsWith(skipPrefix)) {
+                continue;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (delimiter != null && !delimiter.isEmpty()) {
+                int index = key.indexOf(delimiter, prefix.length());
+                if (index >= 0) {
+                    skipPrefix = key.substring(0, index + delimiter.length());
+                    commonPrefixes.append("<CommonPrefixes><Prefix>").append(escape(skipPrefix)).append("</Prefix></CommonPrefixes>");
+                    // 续页从该目录下最后一个对象之后开始
+                    last = objects.subMap(skipPrefix, true, skipPrefix + Character.MAX_VALUE, true).lastKey();
+                    count++;
+                    continue;
+                }
+            }
+            StoredObject object = entry.getValue();
+            contents.append("<Contents><Key>").append(escape(key)).append("</Key><LastModified>")
+                    .append(ISO_DATE.format(Instant.ofEpochMilli(object.lastModified))).append("</LastModified><ETag>\"")
+                    .append(object.etag).append("\"</ETag><Size>").append(object.data.length)
+                    .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+            last = key;
+            count++;
+        }
+        StringBuilder body = new StringBuilder(contents.length() + commonPrefixes.length() + 512);
+        body.append("<ListBucketResult xmlns=\"").append(NAMESPACE).append("\"><Name>").append(escape(bucket))
+                .append("</Name><Prefix>").append(escape(prefix)).append("</Prefix><KeyCount>").append(count)
+                .append("</KeyCount><MaxKeys>").append(maxKeys).append("</MaxKeys>");
+        if (delimiter != null) {
+            body.append("<Delimiter>").append(escape(delimiter)).append("</Delimiter>");
+        }
+        body.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated && last != null) {
+            body.append("<NextContinuationToken>").append(escape(last)).append("</NextContinuationToken>");
+        }
+        body.append(contents).append(commonPrefixes).append("</ListBucketResult>");
+        xml(exchange, 200, body.toString());
+    }
+
+    private void listUploads(HttpExchange exchange, String bucket) throws Exception {
+        StringBuilder body = new StringBuilder("<ListMultipartUploadsResult xmlns=\"").append(NAMESPACE).append("\"><Bucket>")
+                .append(escape(bucket)).append("</Bucket><MaxUploads>1000</MaxUploads><IsTruncated>false</IsTruncated>");
+        for (Map.Entry<String, MultipartUpload> entry : uploads.entrySet()) {
+            MultipartUpload upload = entry.getValue();
+            if (upload.bucket.equals(bucket)) {
+                body.append("<Upload><Key>").append(escape(upload.key)).append("</Key><UploadId>").append(entry.getKey())
+                        .append("</UploadId><Initiator><ID>test</ID><DisplayName>test</DisplayName></Initiator>")
+                        .append("<Owner><ID>test</ID><DisplayName>test</DisplayName></Owner><Initiated>").append(ISO_DATE.format(Instant.ofEpochMilli(upload.initiated)))
+                        .append("</Initiated><StorageClass>STANDARD</StorageClass></Upload>");
+            }
+        }
+        xml(exchange, 200, body.append("</ListMultipartUploadsResult>").toString());
+    }
+
+    private void listParts(HttpExchange exchange, String bucket, String key, String uploadId) throws Exception {
+        MultipartUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            error(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+            return;
+        }
+        StringBuilder body = new StringBuilder("<ListPartsResult xmlns=\"").append(NAMESPACE).append("\"><Bucket>")
+                .append(escape(bucket)).append("</Bucket><Key>").append(escape(key)).append("</Key><UploadId>").append(uploadId)
+                .append("</UploadId><MaxParts>1000</MaxParts><IsTruncated>false</IsTruncated>");
+        for (Map.Entry<Integer, byte[]> part : upload.parts.entrySet()) {
+            body.append("<Part><PartNumber>").append(part.getKey()).append("</PartNumber><LastModified>")
+                    .append(ISO_DATE.format(Instant.now())).append("</LastModified><ETag>\"").append(md5(part.getValue()))
+                    .append("\"</ETag><Size>").append(part.getValue().length).append("</Size></Part>");
+        }
+        xml(exchange, 200, body.append("</ListPartsResult>").toString());
+    }
+
+    /**
+     * 读取复制源的内容，源不存在或区间无效时已发送错误响应并返回 null
+     */
+    private byte[] copySource(HttpExchange exchange, String header, String range) throws Exception {
+        String source = URLDecoder.decode(header, "UTF-8");
+        if (source.startsWith("/")) {
+            source = source.substring(1);
+        }
+        int slash = source.indexOf('/');
+        ConcurrentNavigableMap<String, StoredObject> objects = slash < 0 ? null : buckets.get(source.substring(0, slash));
+        StoredObject object = objects == null ? null : objects.get(source.substring(slash + 1));
+        if (object == null) {
+            error(exchange, 404, "NoSuchKey", "The specified copy source does not exist.");
+            return null;
+        }
+        String ifMatch = exchange.getRequestHeaders().getFirst("x-amz-copy-source-if-match");
+        if (ifMatch != null && !stripQuotes(ifMatch).equals(object.etag)) {
+            error(exchange, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return null;
+        }
+        if (range == null) {
+            throttle(object.data.length);
+            return object.data;
+        }
+        Matcher matcher = RANGE.matcher(range);
+        if (!matcher.matches() || matcher.group(1).isEmpty() || matcher.group(2).isEmpty()) {
+            error(exchange, 400, "InvalidArgument", "invalid copy source range " + range);
+            return null;
+        }
+        int start = Integer.parseInt(matcher.group(1));
+        int end = Integer.parseInt(matcher.group(2));
+        if (start > end || end >= object.data.length) {
+            error(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+            return null;
+        }
+        throttle(end - start + 1);
+        return Arrays.copyOfRange(object.data, start, end + 1);
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[CHUNK];
+        InputStream in = exchange.getRequestBody();
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            body.write(buffer, 0, n);
+            throttle(n);
+        }
+        return body.toByteArray();
+    }
+
+    private void write(OutputStream out, byte[] data, int offset, int length) throws IOException, InterruptedException {
+        int end = offset + length;
+        for (int position = offset; position < end; position += CHUNK) {
+            int n = Math.min(CHUNK, end - position);
+            out.write(data, position, n);
+            throttle(n);
+        }
+        out.flush();
+    }
+
+    private void throttle(long bytes) throws InterruptedException {
+        if (bytesPerSecond > 0) {
+            long nanos = bytes * 1_000_000_000L / bytesPerSecond;
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private void xml(HttpExchange exchange, int status, String body) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("x-amz-request-id", Long.toHexString(requests.get()));
+        if (body == null || body.length == 0 || "HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        write(exchange.getResponseBody(), body, 0, body.length);
+    }
+
+    private void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        try {
+            xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message><Resource>"
+                    + escape(exchange.getRequestURI().getPath()) + "</Resource><RequestId>" + requests.get()
+                    + "</RequestId><HostId>s3-stand-in</HostId></Error>");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String contentType(Headers headers) {
+        String contentType = headers.getFirst("Content-Type");
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String stripQuotes(String etag) {
+        return etag.replace("\"", "").trim();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private static String md5(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class StoredObject {
+
+        private final byte[] data;
+
+        private final String etag;
+
+        private final String contentType;
+
+        private final long lastModified;
+
+        private StoredObject(byte[] data, String etag, String contentType) {
+            this(data, etag, contentType, System.currentTimeMillis());
+        }
+
+        private StoredObject(byte[] data, String etag, String contentType, long lastModified) {
+            this.data = data;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.lastModified = lastModified / 1000 * 1000;
+        }
+    }
+
+    private static final class MultipartUpload {
+
+        private final String bucket;
+
+        private final String key;
+
+        private final String contentType;
+
+        private final long initiated = System.currentTimeMillis();
+
+        private final ConcurrentSkipListMap<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+
+        private MultipartUpload(String bucket, String key, String contentType) {
+            this.bucket = bucket;
+            this.key = key;
+            this.contentType = contentType;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.light.minio.config;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MinioConfigTest {
+
+    @Test
+    public void hostEndpointUsesPortAndSecure() {
+        assertEquals("http://10.0.0.1:9000/", MinioConfig.nodeUrl("10.0.0.1", 9000, false).toString());
+        assertEquals("https://10.0.0.1:9000/", MinioConfig.nodeUrl("10.0.0.1", 9000, true).toString());
+        assertEquals("http://10.0.0.1:9000/", MinioConfig.nodeUrl("10.0.0.1:9000", 0, null).toString());
+    }
+
+    @Test
+    public void urlEndpointIsNotPrefixedTwice() {
+        assertEquals("http://oss.example.com:9000/", MinioConfig.nodeUrl("http://oss.example.com", 9000, null).toString());
+        assertEquals("http://oss.example.com/", MinioConfig.nodeUrl("http://oss.example.com", 0, false).toString());
+    }
+
+    @Test
+    public void urlSchemeDecidesTlsWhenSecureIsUnset() {
+        assertEquals("https://oss.example.com/", MinioConfig.nodeUrl("https://oss.example.com", 0, null).toString());
+        assertEquals("https://oss.example.com:9000/", MinioConfig.nodeUrl("https://oss.example.com:9000", 0, null).toString());
+        assertEquals("http://oss.example.com/", MinioConfig.nodeUrl("https://oss.example.com", 0, false).toString());
+    }
+}
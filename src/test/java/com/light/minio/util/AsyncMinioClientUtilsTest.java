@@ -0,0 +1,91 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.ObjectStat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncMinioClientUtilsTest {
+
+    private static final String BUCKET = "async";
+
+    private static final int OBJECTS = 50;
+
+    private S3StandIn server;
+
+    private ConfigurableApplicationContext context;
+
+    private AsyncMinioClientUtils asyncMinioClientUtils;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        for (int i = 0; i < OBJECTS; i++) {
+            server.putObject(BUCKET, "object-" + i, new byte[i]);
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.minio.endpoints[0]", server.getEndpoint());
+        properties.put("spring.minio.access-key", "test");
+        properties.put("spring.minio.secret-key", "test-secret");
+        properties.put("spring.minio.bucket-name", BUCKET);
+        // 批量远大于并发数与排队数之和
+        properties.put("spring.minio.async.stat-concurrency", 2);
+        properties.put("spring.minio.async.max-pending", 1);
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(properties)
+                .run();
+        asyncMinioClientUtils = context.getBean(AsyncMinioClientUtils.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        server.close();
+    }
+
+    @Test
+    public void statAllStaysWithinTheStatLimits() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = OBJECTS - 1; i >= 0; i--) {
+            names.add("object-" + i);
+        }
+        Map<String, ObjectStat> stats = asyncMinioClientUtils.statAll(BUCKET, names).get(30, TimeUnit.SECONDS);
+        assertEquals(names, new ArrayList<>(stats.keySet()));
+        for (int i = 0; i < OBJECTS; i++) {
+            assertEquals(i, stats.get("object-" + i).length());
+        }
+        assertEquals(0, asyncMinioClientUtils.getStatLimiter().getRejected());
+    }
+
+    @Test
+    public void statAllOfNothingIsEmpty() throws Exception {
+        assertTrue(asyncMinioClientUtils.statAll(BUCKET, new ArrayList<>()).get(30, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({MinioConfig.class, MinioClientUtils.class, AsyncMinioClientUtils.class})
+    static class Application {
+    }
+}
@@ -0,0 +1,190 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DirectorySyncTest {
+
+    private static final String BUCKET = "sync";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private S3StandIn server;
+
+    private ConfigurableApplicationContext context;
+
+    private MinioClientUtils minioClientUtils;
+
+    private Path local;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        local = folder.newFolder("local").toPath();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.minio.endpoints[0]", server.getEndpoint());
+        properties.put("spring.minio.access-key", "test");
+        properties.put("spring.minio.secret-key", "test-secret");
+        properties.put("spring.minio.bucket-name", BUCKET);
+        properties.put("spring.minio.sync.manifest-directory", folder.newFolder("manifest").getPath());
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(properties)
+                .run();
+        minioClientUtils = context.getBean(MinioClientUtils.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        server.close();
+    }
+
+    @Test
+    public void firstUploadSkipsIdenticalObjectsAndDeletesExtraOnes() throws Exception {
+        write("a.txt", "alpha");
+        write("dir/b.txt", "bravo");
+        server.putObject(BUCKET, "p/a.txt", bytes("alpha"));
+        server.putObject(BUCKET, "p/stale.txt", bytes("stale"));
+        server.putObject(BUCKET, "other/c.txt", bytes("charlie"));
+
+        SyncResult result = upload(true);
+
+        assertResult(result, 2, 1, 1, 1);
+        assertEquals(5, result.getBytesTransferred());
+        assertEquals(Arrays.asList("other/c.txt", "p/a.txt", "p/dir/b.txt"), server.objectNames(BUCKET));
+    }
+
+    @Test
+    public void uploadUsesManifestForUnchangedFiles() throws Exception {
+        write("a.txt", "alpha");
+        write("dir/b.txt", "bravo");
+        assertResult(upload(true), 2, 2, 0, 0);
+
+        // 清单中大小和修改时间未变化的文件不再比较内容，服务端对象被改动也不会重新上传
+        server.putObject(BUCKET, "p/a.txt", bytes("changed remotely"));
+        assertResult(upload(true), 2, 0, 2, 0);
+        assertArrayEquals(bytes("changed remotely"), server.getObject(BUCKET, "p/a.txt"));
+
+        write("dir/b.txt", "bravo, modified");
+        Files.delete(local.resolve("a.txt"));
+        assertResult(upload(true), 1, 1, 0, 1);
+        assertEquals(Arrays.asList("p/dir/b.txt"), server.objectNames(BUCKET));
+        assertArrayEquals(bytes("bravo, modified"), server.getObject(BUCKET, "p/dir/b.txt"));
+    }
+
+    @Test
+    public void uploadWithoutDeleteKeepsRemovedFiles() throws Exception {
+        write("a.txt", "alpha");
+        server.putObject(BUCKET, "p/stale.txt", bytes("stale"));
+        assertResult(upload(false), 1, 1, 0, 0);
+
+        Files.delete(local.resolve("a.txt"));
+        assertResult(upload(false), 0, 0, 0, 0);
+        assertEquals(Arrays.asList("p/a.txt", "p/stale.txt"), server.objectNames(BUCKET));
+    }
+
+    @Test
+    public void firstDownloadSkipsIdenticalFilesAndDeletesExtraOnes() throws Exception {
+        server.putObject(BUCKET, "p/a.txt", bytes("alpha"));
+        server.putObject(BUCKET, "p/dir/b.txt", bytes("bravo"));
+        server.putObject(BUCKET, "other/c.txt", bytes("charlie"));
+        write("a.txt", "alpha");
+        write("old.txt", "old");
+
+        SyncResult result = download(true);
+
+        assertResult(result, 2, 1, 1, 1);
+        assertEquals(5, result.getBytesTransferred());
+        assertEquals("bravo", read("dir/b.txt"));
+        assertFalse(Files.exists(local.resolve("old.txt")));
+        assertFalse(Files.exists(local.resolve("c.txt")));
+    }
+
+    @Test
+    public void downloadFetchesChangedObjectsAndDeletesRemovedOnes() throws Exception {
+        server.putObject(BUCKET, "p/a.txt", bytes("alpha"));
+        server.putObject(BUCKET, "p/dir/b.txt", bytes("bravo"));
+        assertResult(download(true), 2, 2, 0, 0);
+        assertResult(download(true), 2, 0, 2, 0);
+
+        server.putObject(BUCKET, "p/a.txt", bytes("alpha, modified"));
+        minioClientUtils.removeObject(BUCKET, "p/dir/b.txt");
+        assertResult(download(true), 1, 1, 0, 1);
+        assertEquals("alpha, modified", read("a.txt"));
+        assertFalse(Files.exists(local.resolve("dir/b.txt")));
+    }
+
+    @Test
+    public void downloadReplacesLocallyModifiedFile() throws Exception {
+        server.putObject(BUCKET, "p/a.txt", bytes("alpha"));
+        assertResult(download(false), 1, 1, 0, 0);
+
+        write("a.txt", "edited locally");
+        write("extra.txt", "extra");
+        assertResult(download(false), 1, 1, 0, 0);
+        assertEquals("alpha", read("a.txt"));
+        assertTrue(Files.exists(local.resolve("extra.txt")));
+    }
+
+    private SyncResult upload(boolean delete) throws Exception {
+        return minioClientUtils.syncUpload(local.toString(), BUCKET, "p", delete);
+    }
+
+    private SyncResult download(boolean delete) throws Exception {
+        return minioClientUtils.syncDownload(BUCKET, "p", local.toString(), delete);
+    }
+
+    private static void assertResult(SyncResult result, long scanned, long transferred, long skipped, long deleted) {
+        assertEquals("scanned", scanned, result.getScanned());
+        assertEquals("transferred", transferred, result.getTransferred());
+        assertEquals("skipped", skipped, result.getSkipped());
+        assertEquals("deleted", deleted, result.getDeleted());
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = local.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes(content));
+    }
+
+    private String read(String name) throws IOException {
+        return new String(Files.readAllBytes(local.resolve(name)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({MinioConfig.class, MinioClientUtils.class})
+    static class Application {
+    }
+}
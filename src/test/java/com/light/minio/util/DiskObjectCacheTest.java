@@ -0,0 +1,142 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.MinioClient;
+import io.minio.ObjectStat;
+import io.minio.StatObjectArgs;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DiskObjectCacheTest {
+
+    private static final String BUCKET = "cache";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private MinioConfig.ObjectCache config;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        pool = new MinioClientPool(Collections.singletonMap(url,
+                MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build()), httpClient, balancer);
+        config = new MinioConfig.ObjectCache();
+        config.setEnabled(true);
+        config.setDirectory(folder.getRoot().getPath());
+        config.setMmapThreshold(0);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void startupOnlyRemovesCacheFiles() throws Exception {
+        Path root = folder.getRoot().toPath();
+        Path stale = Files.write(root.resolve(UUID.randomUUID().toString().replace("-", "").substring(0, 32) + "-" + UUID.randomUUID()), new byte[1]);
+        Path staleTemp = Files.write(root.resolve(UUID.randomUUID() + ".tmp"), new byte[1]);
+        Path other = Files.write(root.resolve("notes.txt"), new byte[1]);
+        Path subdirectory = Files.createDirectories(root.resolve("nested"));
+        Files.write(subdirectory.resolve("data"), new byte[1]);
+
+        new DiskObjectCache(pool, config);
+
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(staleTemp));
+        assertTrue(Files.exists(other));
+        assertTrue(Files.exists(subdirectory.resolve("data")));
+    }
+
+    @Test
+    public void evictedFileIsReloaded() throws Exception {
+        DiskObjectCache cache = new DiskObjectCache(pool, config);
+        byte[] data = "cached content".getBytes(StandardCharsets.UTF_8);
+        server.putObject(BUCKET, "object", data);
+        ObjectStat stat = pool.execute(client -> client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build()));
+        assertArrayEquals(data, read(cache.open(BUCKET, "object", stat, 0, null)));
+
+        // 模拟条目查到之后文件被淘汰
+        for (Path file : cacheFiles()) {
+            Files.delete(file);
+        }
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), read(cache.open(BUCKET, "object", stat, 7, 7L)));
+        assertEquals(1, cacheFiles().size());
+        assertEquals(data.length, cache.getTotalBytes());
+    }
+
+    @Test
+    public void onlyCachedReadsCountAsHitsAndSavedBytes() throws Exception {
+        DiskObjectCache cache = new DiskObjectCache(pool, config);
+        byte[] data = "cached content".getBytes(StandardCharsets.UTF_8);
+        server.putObject(BUCKET, "object", data);
+        ObjectStat stat = pool.execute(client -> client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build()));
+
+        read(cache.open(BUCKET, "object", stat, 0, null));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getBytesSaved());
+
+        read(cache.open(BUCKET, "object", stat, 0, null));
+        assertEquals(1, cache.getHits());
+        assertEquals(data.length, cache.getBytesSaved());
+
+        // stat 的 ETag 与缓存不一致但服务端对象未变，If-None-Match 返回 304
+        ObjectStat changed = new ObjectStat(BUCKET, "object", ZonedDateTime.now(), data.length, "other", "application/octet-stream");
+        assertArrayEquals(data, read(cache.open(BUCKET, "object", changed, 0, null)));
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2L * data.length, cache.getBytesSaved());
+    }
+
+    private List<Path> cacheFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
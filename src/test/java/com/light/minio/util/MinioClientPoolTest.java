@@ -0,0 +1,229 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MinioClientPoolTest {
+
+    private static final String BUCKET = "pool";
+
+    private S3StandIn first;
+
+    private S3StandIn second;
+
+    private MinioClientPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        first = new S3StandIn(0, 0);
+        second = new S3StandIn(0, 0);
+        first.createBucket(BUCKET);
+        second.createBucket(BUCKET);
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void roundRobinSpreadsRequestsEvenly() throws Exception {
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(pool.execute(client -> client.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())));
+        }
+        List<MinioClientPool.Node> nodes = pool.getNodes();
+        assertEquals(5, nodes.get(0).getRequests().get());
+        assertEquals(5, nodes.get(1).getRequests().get());
+        assertTrue(first.getRequests() > 0);
+        assertTrue(second.getRequests() > 0);
+    }
+
+    @Test
+    public void leastOutstandingAvoidsBusyNode() throws Exception {
+        pool = pool(MinioConfig.Balancer.Strategy.LEAST_OUTSTANDING);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MinioClient> busy = executor.submit(() -> pool.execute(client -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return client;
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            MinioClient idle = null;
+            for (int i = 0; i < 5; i++) {
+                MinioClient selected = pool.execute(client -> client);
+                if (idle == null) {
+                    idle = selected;
+                }
+                assertSame(idle, selected);
+            }
+            release.countDown();
+            assertNotSame(idle, busy.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failsOverWhenNodeIsMarkedDown() throws Exception {
+        // 健康检查间隔足够长，测试期间不会执行
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN, TimeUnit.HOURS.toMillis(1));
+        second.close();
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                assertTrue(pool.execute(client -> client.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())));
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+        MinioClientPool.Node down = pool.getNodes().get(1);
+        assertFalse(down.isHealthy());
+        assertTrue(pool.getNodes().get(0).isHealthy());
+        // 连续失败达到阈值后不再选择该节点
+        assertEquals(new MinioConfig.Balancer().getUnhealthyThreshold(), failures);
+        assertEquals(failures, down.getRequests().get());
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() throws Exception {
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN, TimeUnit.HOURS.toMillis(1));
+        int threshold = new MinioConfig.Balancer().getUnhealthyThreshold();
+        // 轮询交替选择两个节点，每轮每个节点失败 threshold - 1 次后成功一次，累计失败数超过阈值
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 2 * (threshold - 1); i++) {
+                try {
+                    pool.execute(client -> {
+                        throw new SocketTimeoutException("transient");
+                    });
+                } catch (IOException expected) {
+                    // 偶发错误
+                }
+            }
+            pool.execute(client -> client);
+            pool.execute(client -> client);
+        }
+        for (MinioClientPool.Node node : pool.getNodes()) {
+            assertTrue(node.isHealthy());
+            assertEquals(0, node.getConsecutiveFailures().get());
+        }
+    }
+
+    @Test
+    public void nodesStayInRotationWithoutHealthChecks() throws Exception {
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN);
+        second.close();
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                pool.execute(client -> client.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build()));
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+        // 没有健康检查时移出的节点无法恢复，因此不移出
+        assertEquals(10, failures);
+        assertTrue(pool.getNodes().get(1).isHealthy());
+    }
+
+    @Test
+    public void openBodiesCountAsOutstanding() throws Exception {
+        first.putObject(BUCKET, "object", new byte[10]);
+        second.putObject(BUCKET, "object", new byte[10]);
+        pool = pool(MinioConfig.Balancer.Strategy.LEAST_OUTSTANDING);
+        GetObjectArgs args = GetObjectArgs.builder().bucket(BUCKET).object("object").build();
+        List<MinioClientPool.Node> nodes = pool.getNodes();
+        try (InputStream streaming = pool.executeStream(client -> client.getObject(args))) {
+            assertEquals(1, nodes.get(0).getOutstanding().get() + nodes.get(1).getOutstanding().get());
+            MinioClientPool.Node busy = nodes.get(0).getOutstanding().get() == 1 ? nodes.get(0) : nodes.get(1);
+            // 响应体未关闭的节点仍然忙，后续请求都选择另一个节点
+            for (int i = 0; i < 4; i++) {
+                try (InputStream other = pool.executeStream(client -> client.getObject(args))) {
+                    assertEquals(2, nodes.get(0).getOutstanding().get() + nodes.get(1).getOutstanding().get());
+                }
+            }
+            assertEquals(1, busy.getRequests().get());
+            assertEquals(10, streaming.read(new byte[16]));
+        }
+        assertEquals(0, nodes.get(0).getOutstanding().get());
+        assertEquals(0, nodes.get(1).getOutstanding().get());
+    }
+
+    @Test
+    public void localIoErrorsDoNotMarkNodesDown() throws Exception {
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN, TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < 20; i++) {
+            try {
+                pool.execute(client -> {
+                    throw new FileNotFoundException("part source removed");
+                });
+            } catch (FileNotFoundException expected) {
+                // 读取分片的本地文件失败
+            }
+        }
+        for (MinioClientPool.Node node : pool.getNodes()) {
+            assertTrue(node.isHealthy());
+            assertEquals(0, node.getConsecutiveFailures().get());
+        }
+    }
+
+    @Test
+    public void nodeEndpointIsTheClientUrl() {
+        pool = pool(MinioConfig.Balancer.Strategy.ROUND_ROBIN);
+        MinioClientPool.Node node = pool.getNodes().get(0);
+        assertEquals(first.getEndpoint(), node.getEndpoint());
+        assertEquals(HttpUrl.parse(first.getEndpoint()), node.getUrl());
+    }
+
+    private MinioClientPool pool(MinioConfig.Balancer.Strategy strategy) {
+        return pool(strategy, 0);
+    }
+
+    private MinioClientPool pool(MinioConfig.Balancer.Strategy strategy, long healthCheckInterval) {
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setStrategy(strategy);
+        balancer.setHealthCheckInterval(healthCheckInterval);
+        OkHttpClient httpClient = new OkHttpClient.Builder().retryOnConnectionFailure(false).build();
+        Map<HttpUrl, MinioClient> clients = new LinkedHashMap<>();
+        for (S3StandIn server : new S3StandIn[]{first, second}) {
+            HttpUrl url = HttpUrl.parse(server.getEndpoint());
+            clients.put(url, MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build());
+        }
+        return new MinioClientPool(clients, httpClient, balancer);
+    }
+}
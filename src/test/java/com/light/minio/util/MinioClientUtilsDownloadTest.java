@@ -0,0 +1,146 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MinioClientUtilsDownloadTest {
+
+    private static final String BUCKET = "download";
+
+    private static final String OBJECT = "docs/report.bin";
+
+    private final byte[] data = new byte[100];
+
+    private S3StandIn server;
+
+    private ConfigurableApplicationContext context;
+
+    private MinioClientUtils minioClientUtils;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        server = new S3StandIn(0, 0);
+        server.putObject(BUCKET, OBJECT, data);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.minio.endpoints[0]", server.getEndpoint());
+        properties.put("spring.minio.access-key", "test");
+        properties.put("spring.minio.secret-key", "test-secret");
+        properties.put("spring.minio.bucket-name", BUCKET);
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(properties)
+                .run();
+        minioClientUtils = context.getBean(MinioClientUtils.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        server.close();
+    }
+
+    @Test
+    public void fullDownloadUsesOriginalName() throws Exception {
+        MockHttpServletResponse response = download(request(null), "report.pdf");
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals("100", response.getHeader("Content-Length"));
+        assertEquals("attachment;filename=report.pdf", response.getHeader("Content-Disposition"));
+        assertArrayEquals(data, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void blankOriginalNameFallsBackToObjectName() throws Exception {
+        MockHttpServletResponse response = download(request(null), " ");
+        assertEquals("attachment;filename=" + OBJECT, response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    public void rangeReturnsPartialContent() throws Exception {
+        MockHttpServletResponse response = download(request("bytes=10-19"), null);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader("Content-Range"));
+        assertEquals("10", response.getHeader("Content-Length"));
+        assertArrayEquals(Arrays.copyOfRange(data, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void suffixRangeReturnsTail() throws Exception {
+        MockHttpServletResponse response = download(request("bytes=-5"), null);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 95-99/100", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(data, 95, 100), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void unsatisfiableRangeIsRejected() throws Exception {
+        MockHttpServletResponse response = download(request("bytes=200-"), null);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void matchingIfNoneMatchReturnsNotModified() throws Exception {
+        String etag = download(request(null), null).getHeader("ETag");
+        MockHttpServletRequest request = request(null);
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = download(request, null);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void staleIfRangeReturnsFullContent() throws Exception {
+        MockHttpServletRequest request = request("bytes=10-19");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = download(request, null);
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertArrayEquals(data, response.getContentAsByteArray());
+    }
+
+    private static MockHttpServletRequest request(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request, String originalName) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        minioClientUtils.downloadFile(BUCKET, OBJECT, originalName, request, response);
+        return response;
+    }
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({MinioConfig.class, MinioClientUtils.class})
+    static class Application {
+    }
+}
@@ -0,0 +1,139 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class MinioInstrumentationTest {
+
+    private static final String BUCKET = "metrics";
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private RecordingMetrics metrics;
+
+    private MinioInstrumentation instrumentation;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        server.putObject(BUCKET, "object", new byte[10]);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        pool = new MinioClientPool(Collections.singletonMap(url,
+                MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build()), httpClient, balancer);
+        metrics = new RecordingMetrics();
+        instrumentation = new MinioInstrumentation(metrics, MinioTracer.NOOP);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void handledPreconditionFailureIsNotAnError() throws Exception {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("get", BUCKET, "object")) {
+            try {
+                get(ReadConditions.ifMatch("stale-etag"));
+                fail("conditional read of a changed object succeeded");
+            } catch (Exception e) {
+                assertTrue(MinioExceptions.isPreconditionFailed(e));
+                MinioInstrumentation.handled(MinioExceptions::isPreconditionFailed);
+            }
+            get(Collections.emptyMap());
+        }
+        assertTrue(metrics.errors.isEmpty());
+        assertEquals(Collections.singletonList(true), metrics.outcomes);
+    }
+
+    @Test
+    public void handledNotModifiedIsNotAnError() throws Exception {
+        String etag = pool.execute(client -> client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build())).etag();
+        try (MinioInstrumentation.Scope scope = instrumentation.start("get", BUCKET, "object")) {
+            try {
+                get(ReadConditions.ifNoneMatch(etag));
+                fail("revalidation of an unchanged object returned content");
+            } catch (Exception e) {
+                assertTrue(MinioExceptions.isNotModified(e));
+                MinioInstrumentation.handled(MinioExceptions::isNotModified);
+            }
+        }
+        assertTrue(metrics.errors.isEmpty());
+        assertEquals(Collections.singletonList(true), metrics.outcomes);
+    }
+
+    @Test
+    public void cancelledCallIsNotAnError() {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("get", BUCKET, "object")) {
+            try {
+                pool.execute(client -> {
+                    throw new CancellationException("hedge returned first");
+                });
+                fail("cancelled call returned");
+            } catch (CancellationException expected) {
+                // 对冲请求中落后的一方
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+        assertTrue(metrics.errors.isEmpty());
+        assertEquals(Collections.singletonList(true), metrics.outcomes);
+    }
+
+    @Test
+    public void unhandledErrorIsRecordedOnce() {
+        try (MinioInstrumentation.Scope scope = instrumentation.start("get", BUCKET, "object")) {
+            get(ReadConditions.ifMatch("stale-etag"));
+            fail("conditional read of a changed object succeeded");
+        } catch (Exception e) {
+            assertTrue(MinioExceptions.isPreconditionFailed(e));
+        }
+        assertEquals(1, metrics.errors.size());
+        assertTrue(MinioExceptions.isPreconditionFailed(metrics.errors.get(0)));
+        assertEquals(Collections.singletonList(false), metrics.outcomes);
+    }
+
+    private void get(Map<String, String> headers) throws Exception {
+        GetObjectArgs args = GetObjectArgs.builder().bucket(BUCKET).object("object").extraHeaders(headers).build();
+        pool.execute(client -> client.getObject(args)).close();
+    }
+
+    private static class RecordingMetrics implements MinioMetrics {
+
+        private final List<Boolean> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+        private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void recordLatency(String operation, long nanos, boolean success) {
+            outcomes.add(success);
+        }
+
+        @Override
+        public void recordError(String operation, Throwable error) {
+            errors.add(error);
+        }
+    }
+}
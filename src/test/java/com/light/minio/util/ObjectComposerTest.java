@@ -0,0 +1,191 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.MinioClient;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ObjectComposerTest {
+
+    private static final String BUCKET = "compose";
+
+    private static final int MIB = 1024 * 1024;
+
+    private static final String PART_PREFIX = new MinioConfig.Upload().getPartPrefix();
+
+    private final Random random = new Random(1);
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private ObjectListing listing;
+
+    private ObjectComposer composer;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        pool = new MinioClientPool(Collections.singletonMap(url,
+                MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build()), httpClient, balancer);
+        listing = new ObjectListing(pool, new MinioConfig.Listing(), PART_PREFIX);
+    }
+
+    @After
+    public void tearDown() {
+        if (composer != null) {
+            composer.shutdown();
+        }
+        listing.shutdown();
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void composesSmallAndLargeSourcesInOrder() throws Exception {
+        composer = composer(10000);
+        byte[] expected = sources(MIB, 3 * MIB, 7 * MIB, 2 * MIB, 6 * MIB, 1);
+        assertEquals(expected.length, composer.compose(BUCKET, names(6), BUCKET, "target", null));
+        assertArrayEquals(expected, server.getObject(BUCKET, "target"));
+        assertNoTemporary();
+    }
+
+    @Test
+    public void smallSourcesFillExactlyOneMinimumPart() throws Exception {
+        composer = composer(10000);
+        byte[] expected = sources(4 * MIB, MIB, 4 * MIB);
+        assertEquals(expected.length, composer.compose(BUCKET, names(3), BUCKET, "target", null));
+        assertArrayEquals(expected, server.getObject(BUCKET, "target"));
+        assertNoTemporary();
+    }
+
+    @Test
+    public void singleSmallSource() throws Exception {
+        composer = composer(10000);
+        byte[] expected = sources(1000);
+        composer.compose(BUCKET, names(1), BUCKET, "target", null);
+        assertArrayEquals(expected, server.getObject(BUCKET, "target"));
+        assertNoTemporary();
+    }
+
+    @Test
+    public void allSourcesEmpty() throws Exception {
+        composer = composer(10000);
+        sources(0, 0, 0);
+        assertEquals(0, composer.compose(BUCKET, names(3), BUCKET, "target", null));
+        assertArrayEquals(new byte[0], server.getObject(BUCKET, "target"));
+        assertNoTemporary();
+    }
+
+    @Test
+    public void reducesThroughIntermediateObjects() throws Exception {
+        composer = composer(2);
+        byte[] expected = sources(6 * MIB, 5 * MIB, 6 * MIB, 5 * MIB, 3 * MIB);
+        composer.compose(BUCKET, names(5), BUCKET, "target", null);
+        assertArrayEquals(expected, server.getObject(BUCKET, "target"));
+        assertNoTemporary();
+    }
+
+    @Test
+    public void rejectsInvalidMaxComposeSources() {
+        for (int invalid : new int[]{0, 1, 10001}) {
+            try {
+                composer(invalid);
+                fail("maxComposeSources " + invalid + " accepted");
+            } catch (IllegalArgumentException expected) {
+                // 启动时即失败
+            }
+        }
+    }
+
+    @Test
+    public void copyPrefixTreatsPrefixesAsDirectories() throws Exception {
+        composer = composer(10000);
+        server.putObject(BUCKET, "logs/a", new byte[1]);
+        server.putObject(BUCKET, "logs/b/c", new byte[1]);
+        server.putObject(BUCKET, "logs-old", new byte[1]);
+        assertEquals(2, composer.copyPrefix(BUCKET, "logs", BUCKET, "logs2"));
+        assertEquals(Arrays.asList("logs-old", "logs/a", "logs/b/c", "logs2/a", "logs2/b/c"), server.objectNames(BUCKET));
+        try {
+            composer.copyPrefix(BUCKET, "logs", BUCKET, "logs/backup/");
+            fail("target inside source accepted");
+        } catch (IllegalArgumentException expected) {
+            // 目标目录位于源目录之下
+        }
+    }
+
+    @Test
+    public void temporaryObjectsAreHiddenAndStaleOnesRemoved() throws Exception {
+        composer = composer(10000);
+        long old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30);
+        server.putObject(BUCKET, PART_PREFIX + "target/old/0", new byte[1], old);
+        server.putObject(BUCKET, PART_PREFIX + "target/new/0", new byte[1]);
+        assertTrue(listing.isEmpty(BUCKET, null));
+        server.putObject(BUCKET, "visible", new byte[1]);
+        assertEquals(Collections.singletonList("visible"),
+                listing.stream(BUCKET, null, null, null).map(item -> item.objectName()).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("visible"),
+                listing.parallelStream(BUCKET, null).map(item -> item.objectName()).collect(Collectors.toList()));
+
+        assertEquals(1, composer.removeStaleTemporary(BUCKET));
+        assertEquals(Arrays.asList(PART_PREFIX + "target/new/0", "visible"), server.objectNames(BUCKET));
+        assertEquals(1, composer.removeTemporary(BUCKET));
+        assertEquals(Collections.singletonList("visible"), server.objectNames(BUCKET));
+    }
+
+    private ObjectComposer composer(int maxComposeSources) {
+        MinioConfig.Copy copy = new MinioConfig.Copy();
+        copy.setMaxComposeSources(maxComposeSources);
+        return new ObjectComposer(pool, listing, copy, new MinioConfig.Upload());
+    }
+
+    /**
+     * 写入 source0、source1 ... 并返回按顺序拼接的内容
+     */
+    private byte[] sources(int... sizes) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] data = new byte[sizes[i]];
+            random.nextBytes(data);
+            server.putObject(BUCKET, "source" + i, data);
+            expected.write(data);
+        }
+        return expected.toByteArray();
+    }
+
+    private static List<String> names(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("source" + i);
+        }
+        return names;
+    }
+
+    private void assertNoTemporary() {
+        for (String name : server.objectNames(BUCKET)) {
+            assertFalse(name, name.startsWith(PART_PREFIX));
+        }
+        assertEquals(0, server.uploadCount());
+    }
+}
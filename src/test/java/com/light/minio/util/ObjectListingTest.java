@@ -0,0 +1,116 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.MinioClient;
+import io.minio.messages.Item;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectListingTest {
+
+    private static final String BUCKET = "listing";
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private ObjectListing listing;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        pool = new MinioClientPool(Collections.singletonMap(url,
+                MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build()), httpClient, balancer);
+        MinioConfig.Listing config = new MinioConfig.Listing();
+        config.setPageSize(7);
+        config.setQueueCapacity(2);
+        config.setParallelThreads(2);
+        listing = new ObjectListing(pool, config, ".parts/");
+    }
+
+    @After
+    public void tearDown() {
+        listing.shutdown();
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void parallelStreamReturnsTopLevelAndNestedObjectsThroughBoundedQueue() {
+        Set<String> expected = new TreeSet<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(put("top-" + i));
+            expected.add(put("dir-" + (i % 5) + "/object-" + i));
+            expected.add(put("dir-" + (i % 5) + "/nested/object-" + i));
+        }
+        put(".parts/hidden/0");
+        try (Stream<Item> stream = listing.parallelStream(BUCKET, null)) {
+            assertEquals(expected, stream.map(Item::objectName).collect(Collectors.toCollection(TreeSet::new)));
+        }
+    }
+
+    @Test
+    public void closingParallelStreamEarlyStopsListing() {
+        for (int i = 0; i < 50; i++) {
+            put("top-" + i);
+            put("dir-" + (i % 5) + "/object-" + i);
+        }
+        try (Stream<Item> stream = listing.parallelStream(BUCKET, null)) {
+            assertEquals(3, stream.limit(3).count());
+        }
+        // 关闭后后台任务结束，线程池可以继续使用
+        try (Stream<Item> stream = listing.parallelStream(BUCKET, "dir-0/")) {
+            assertTrue(stream.allMatch(item -> item.objectName().startsWith("dir-0/")));
+        }
+    }
+
+    @Test
+    public void delimiterPagesSkipPastCommonPrefixes() {
+        Set<String> expected = new TreeSet<>();
+        for (int i = 0; i < 3; i++) {
+            put("a/object-" + i);
+            put("c/object-" + i);
+        }
+        expected.add("a/");
+        expected.add(put("b"));
+        expected.add("c/");
+        expected.add(put("d"));
+        List<String> names = new ArrayList<>();
+        String startAfter = null;
+        for (int pages = 0; pages < 10; pages++) {
+            ObjectPage page = listing.page(BUCKET, null, "/", startAfter, 1);
+            page.getItems().forEach(item -> names.add(item.objectName()));
+            if (!page.hasNext()) {
+                break;
+            }
+            startAfter = page.getNextStartAfter();
+        }
+        assertEquals(new ArrayList<>(expected), names);
+    }
+
+    private String put(String objectName) {
+        server.putObject(BUCKET, objectName, new byte[1]);
+        return objectName;
+    }
+}
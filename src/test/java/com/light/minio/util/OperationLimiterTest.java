@@ -0,0 +1,57 @@
+package com.light.minio.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class OperationLimiterTest {
+
+    @Test
+    public void rejectedDispatchFailsFutureAndReleasesPermit() throws Exception {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        OperationLimiter limiter = new OperationLimiter("test", rejecting, 1, 10);
+        Thread caller = Thread.currentThread();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<Thread> future = limiter.submit(Thread::currentThread);
+            try {
+                future.get();
+                fail("task ran on " + caller);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(0, limiter.getInFlight());
+        }
+        assertEquals(3, limiter.getRejected());
+    }
+
+    @Test
+    public void pendingOperationsFailWhenExecutorRejectsThem() throws Exception {
+        Runnable[] held = new Runnable[1];
+        boolean[] reject = {false};
+        Executor executor = command -> {
+            if (reject[0]) {
+                throw new RejectedExecutionException("shut down");
+            }
+            held[0] = command;
+        };
+        OperationLimiter limiter = new OperationLimiter("test", executor, 1, 10);
+        CompletableFuture<String> first = limiter.submit(() -> "first");
+        CompletableFuture<String> second = limiter.submit(() -> "second");
+        CompletableFuture<String> third = limiter.submit(() -> "third");
+        assertEquals(2, limiter.getPending());
+        reject[0] = true;
+        held[0].run();
+        assertEquals("first", first.get());
+        assertTrue(second.isCompletedExceptionally());
+        assertTrue(third.isCompletedExceptionally());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getPending());
+    }
+}
@@ -0,0 +1,104 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.MinioClient;
+import io.minio.ObjectStat;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelDownloaderTest {
+
+    private static final String BUCKET = "download";
+
+    private static final int MIB = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private MinioClient client;
+
+    private ParallelDownloader downloader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        client = MinioClient.builder().endpoint(url).credentials("test", "test-secret").httpClient(httpClient).build();
+        pool = new MinioClientPool(Collections.singletonMap(url, client), httpClient, balancer);
+        MinioConfig.Download download = new MinioConfig.Download();
+        download.setRangeSize(MIB);
+        download.setResume(false);
+        download.setRetries(0);
+        downloader = new ParallelDownloader(pool, download, MinioInstrumentation.NOOP);
+    }
+
+    @After
+    public void tearDown() {
+        downloader.shutdown();
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void withoutResumeLeavesOnlyTheTargetFile() throws Exception {
+        byte[] data = new byte[3 * MIB + 1];
+        new Random(1).nextBytes(data);
+        server.putObject(BUCKET, "object", data);
+        ObjectStat stat = client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build());
+        File target = new File(folder.getRoot(), "object");
+        downloader.download(BUCKET, "object", stat, target.getPath());
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+        assertArrayEquals(new String[]{"object"}, folder.getRoot().list());
+    }
+
+    @Test
+    public void objectModifiedAfterStatFailsThePrecondition() throws Exception {
+        server.putObject(BUCKET, "object", new byte[2 * MIB]);
+        ObjectStat stat = client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build());
+        server.putObject(BUCKET, "object", new byte[2 * MIB + 1]);
+        try {
+            downloader.download(BUCKET, "object", stat, new File(folder.getRoot(), "object").getPath());
+            fail("download of a modified object succeeded");
+        } catch (Exception expected) {
+            assertTrue(MinioExceptions.isPreconditionFailed(expected));
+        }
+    }
+
+    @Test
+    public void failedDownloadWithoutResumeLeavesNothing() throws Exception {
+        server.putObject(BUCKET, "object", new byte[2 * MIB]);
+        ObjectStat stat = client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("object").build());
+        // 对象在 stat 之后被删除，读取失败
+        client.removeObject(RemoveObjectArgs.builder().bucket(BUCKET).object("object").build());
+        try {
+            downloader.download(BUCKET, "object", stat, new File(folder.getRoot(), "object").getPath());
+            fail("download of a removed object succeeded");
+        } catch (Exception expected) {
+            assertTrue(MinioExceptions.isNotFound(expected));
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+}
@@ -0,0 +1,181 @@
+package com.light.minio.util;
+
+import com.light.minio.S3StandIn;
+import com.light.minio.config.MinioConfig;
+import io.minio.ObjectWriteResponse;
+import io.minio.errors.*;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ParallelUploaderTest {
+
+    private static final String BUCKET = "upload";
+
+    private static final int MIB = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private S3StandIn server;
+
+    private MinioClientPool pool;
+
+    private RecordingClient client;
+
+    private ParallelUploader uploader;
+
+    private Path stateDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new S3StandIn(0, 0);
+        server.createBucket(BUCKET);
+        MinioConfig.Balancer balancer = new MinioConfig.Balancer();
+        balancer.setHealthCheckInterval(0);
+        OkHttpClient httpClient = new OkHttpClient();
+        HttpUrl url = HttpUrl.parse(server.getEndpoint());
+        client = new RecordingClient(url, httpClient);
+        pool = new MinioClientPool(Collections.singletonMap(url, client), httpClient, balancer);
+        stateDirectory = folder.newFolder("state").toPath();
+        uploader = uploader(false);
+    }
+
+    private ParallelUploader uploader(boolean directBuffers) {
+        MinioConfig.Upload upload = new MinioConfig.Upload();
+        upload.setStateDirectory(stateDirectory.toString());
+        upload.setPartSize(5 * MIB);
+        upload.setThreads(2);
+        upload.setConcurrency(2);
+        upload.setDirectBuffers(directBuffers);
+        return new ParallelUploader(pool, upload, MinioInstrumentation.NOOP);
+    }
+
+    @After
+    public void tearDown() {
+        uploader.shutdown();
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void abortsOnlyUploadsRecordedInStaleState() throws Exception {
+        server.createBucket("other");
+        client.initiate(BUCKET, "foreign", null);
+        Path own = staleState("own", client.initiate(BUCKET, "own", null) + "\n" + BUCKET + "\nown");
+        // 上传到其它存储桶的记录在其所属的存储桶中放弃
+        Path other = staleState("other", client.initiate("other", "dir/other", null) + "\nother\ndir/other");
+        // 服务端已不存在的上传只删除记录
+        Path gone = staleState("gone", "missing-upload\n" + BUCKET + "\ngone");
+        Path malformed = staleState("malformed", "legacy-upload-id");
+        client.initiate(BUCKET, "recent", null);
+        Files.write(stateDirectory.resolve("recent.upload"), ("not-stale\n" + BUCKET + "\nrecent").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, uploader.abortStaleUploads());
+        // 其它客户端的上传和未过期的续传记录保留
+        assertEquals(2, server.uploadCount());
+        assertFalse(Files.exists(own));
+        assertFalse(Files.exists(other));
+        assertFalse(Files.exists(gone));
+        assertTrue(Files.exists(malformed));
+        try (Stream<Path> states = Files.list(stateDirectory)) {
+            assertEquals(2, states.count());
+        }
+    }
+
+    @Test
+    public void streamPartsAreSentFromPooledHeapBuffers() throws Exception {
+        uploadStreams(uploader);
+        UploadBufferPool buffers = uploader.getBufferPool();
+        assertTrue(buffers.getReuses() > 0);
+        // 每个分片的请求体都是池中缓冲区的数组本身，两次上传复用同一批数组
+        assertTrue(client.payloads.size() <= buffers.getAllocatedBytes() / buffers.getBufferSize());
+        assertNull(uploader.getStagingPool());
+    }
+
+    @Test
+    public void directBuffersAreStagedInPooledHeapArrays() throws Exception {
+        ParallelUploader direct = uploader(true);
+        try {
+            uploadStreams(direct);
+            UploadBufferPool staging = direct.getStagingPool();
+            assertTrue(staging.getReuses() > 0);
+            assertEquals(0, staging.getInUseBytes());
+            assertTrue(client.payloads.size() <= staging.getAllocatedBytes() / staging.getBufferSize());
+        } finally {
+            direct.shutdown();
+        }
+    }
+
+    /**
+     * 依次上传两个跨多个分片的流和一个不足一个分片的流，并校验内容
+     */
+    private void uploadStreams(ParallelUploader uploader) throws Exception {
+        for (int size : new int[]{2 * 5 * MIB + 123, 3 * 5 * MIB, MIB}) {
+            byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+            uploader.uploadStream(BUCKET, "stream-" + size, new ByteArrayInputStream(data), null);
+            assertArrayEquals(data, server.getObject(BUCKET, "stream-" + size));
+        }
+        // 3 + 3 个分片和 1 次 PUT
+        assertEquals(7, client.sends.get());
+        assertEquals(0, uploader.getBufferPool().getInUseBytes());
+    }
+
+    private Path staleState(String name, String content) throws IOException {
+        Path state = stateDirectory.resolve(name + ".upload");
+        Files.write(state, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(state, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30)));
+        return state;
+    }
+
+    /**
+     * 记录内存分片请求体数组的客户端
+     */
+    private static class RecordingClient extends MultipartMinioClient {
+
+        private final Set<byte[]> payloads = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        private final AtomicInteger sends = new AtomicInteger();
+
+        RecordingClient(HttpUrl url, OkHttpClient httpClient) throws Exception {
+            super(url, "test", "test-secret", httpClient);
+        }
+
+        @Override
+        String uploadPart(String bucketName, String objectName, String uploadId, int partNumber, byte[] data, int length) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+            payloads.add(data);
+            sends.incrementAndGet();
+            return super.uploadPart(bucketName, objectName, uploadId, partNumber, data, length);
+        }
+
+        @Override
+        ObjectWriteResponse put(String bucketName, String objectName, byte[] data, int length, String contentType) throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, InvalidBucketNameException, ErrorResponseException {
+            payloads.add(data);
+            sends.incrementAndGet();
+            return super.put(bucketName, objectName, data, length, contentType);
+        }
+    }
+}
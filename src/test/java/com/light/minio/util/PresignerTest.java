@@ -0,0 +1,152 @@
+package com.light.minio.util;
+
+import com.light.minio.config.MinioConfig;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.*;
+
+public class PresignerTest {
+
+    private static final String ACCESS_KEY = "test";
+
+    private static final String SECRET_KEY = "test-secret";
+
+    private static final String BUCKET = "presign";
+
+    private static final String[] ENDPOINTS = {
+            "http://10.0.0.1:9000",
+            "https://oss.example.com",
+            "http://oss.example.com:80",
+            "https://oss.example.com:8443"
+    };
+
+    private static final String[] OBJECTS = {
+            "report.pdf",
+            "dir/sub dir/a+b=c&d.txt",
+            "中文/文件 名(1).txt",
+            "100%~_-.!*'@$,;:[]",
+            "/leading/slash"
+    };
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    @Test
+    public void matchesSdkPresignedUrls() throws Exception {
+        MinioConfig.Presign config = new MinioConfig.Presign();
+        for (String endpoint : ENDPOINTS) {
+            HttpUrl url = HttpUrl.parse(endpoint);
+            Presigner presigner = new Presigner(url, ACCESS_KEY, SECRET_KEY, config);
+            MinioClient client = MinioClient.builder().endpoint(url).region(config.getRegion()).credentials(ACCESS_KEY, SECRET_KEY).build();
+            for (Method method : new Method[]{Method.GET, Method.PUT}) {
+                for (String objectName : OBJECTS) {
+                    HttpUrl expected = HttpUrl.parse(client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                            .method(method).bucket(BUCKET).object(objectName).expiry(3600).build()));
+                    // 与 SDK 使用相同的签名时间
+                    ZonedDateTime time = ZonedDateTime.parse(expected.queryParameter("X-Amz-Date"), AMZ_DATE_FORMAT);
+                    HttpUrl actual = HttpUrl.parse(presigner.sign(method, BUCKET, objectName, 3600, time));
+                    assertSameUrl(method + " " + endpoint + " " + objectName, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void signsIpv6HostWithBrackets() throws Exception {
+        // 7.1.0 的 getPresignedObjectUrl 以不带方括号的地址签名，与客户端发送的 Host 头 [::1]:9000 不一致；
+        // 这里用 SDK 的签名算法按实际的 Host 头签名作为对照
+        MinioConfig.Presign config = new MinioConfig.Presign();
+        HttpUrl endpoint = HttpUrl.parse("http://[::1]:9000");
+        Presigner presigner = new Presigner(endpoint, ACCESS_KEY, SECRET_KEY, config);
+        java.lang.reflect.Method presignV4 = Class.forName("io.minio.Signer").getDeclaredMethod("presignV4",
+                Request.class, String.class, String.class, String.class, int.class);
+        presignV4.setAccessible(true);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC).withNano(0);
+        for (Method method : new Method[]{Method.GET, Method.PUT}) {
+            for (String objectName : OBJECTS) {
+                HttpUrl actual = HttpUrl.parse(presigner.sign(method, BUCKET, objectName, 3600, time));
+                Request request = new Request.Builder()
+                        .url(actual.newBuilder().query(null).build())
+                        .method(method.name(), method == Method.PUT ? RequestBody.create(null, new byte[0]) : null)
+                        .header("Host", "[::1]:9000")
+                        .header("x-amz-date", AMZ_DATE_FORMAT.format(time))
+                        .build();
+                HttpUrl expected = (HttpUrl) presignV4.invoke(null, request, config.getRegion(), ACCESS_KEY, SECRET_KEY, 3600);
+                assertSameUrl(method + " " + objectName, expected, actual);
+            }
+        }
+    }
+
+    private static void assertSameUrl(String message, HttpUrl expected, HttpUrl actual) {
+        assertEquals(message, expected.scheme(), actual.scheme());
+        assertEquals(message, expected.host(), actual.host());
+        assertEquals(message, expected.port(), actual.port());
+        assertEquals(message, expected.encodedPath(), actual.encodedPath());
+        assertEquals(message, expected.querySize(), actual.querySize());
+        for (String name : expected.queryParameterNames()) {
+            assertEquals(message + " " + name, expected.queryParameter(name), actual.queryParameter(name));
+        }
+    }
+
+    @Test
+    public void keepsEmptyPathSegmentsOfTheKey() {
+        // SDK 生成 URL 时合并连续的 '/'，指向的是另一个对象；S3 的对象名中连续的 '/' 是有效的
+        Presigner presigner = new Presigner(HttpUrl.parse("http://10.0.0.1:9000"), ACCESS_KEY, SECRET_KEY, new MinioConfig.Presign());
+        HttpUrl url = HttpUrl.parse(presigner.presign(Method.GET, BUCKET, "a//b", 600));
+        assertEquals("/" + BUCKET + "/a//b", url.encodedPath());
+    }
+
+    @Test
+    public void signsWithRequestedExpiryAndCurrentTime() {
+        Presigner presigner = new Presigner(HttpUrl.parse("http://10.0.0.1:9000"), ACCESS_KEY, SECRET_KEY, new MinioConfig.Presign());
+        ZonedDateTime before = ZonedDateTime.now(ZoneOffset.UTC).withNano(0);
+        HttpUrl url = HttpUrl.parse(presigner.presign(Method.GET, BUCKET, "report.pdf", 600));
+        ZonedDateTime after = ZonedDateTime.now(ZoneOffset.UTC);
+        assertEquals("600", url.queryParameter("X-Amz-Expires"));
+        ZonedDateTime signed = ZonedDateTime.parse(url.queryParameter("X-Amz-Date"), AMZ_DATE_FORMAT);
+        assertFalse(signed.isBefore(before));
+        assertFalse(signed.isAfter(after));
+        assertEquals(ACCESS_KEY + "/" + signed.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "/us-east-1/s3/aws4_request",
+                url.queryParameter("X-Amz-Credential"));
+    }
+
+    @Test
+    public void cachedUrlIsResignedAfterRefreshFraction() throws Exception {
+        MinioConfig.Presign config = new MinioConfig.Presign();
+        config.setRefreshFraction(0.5);
+        Presigner presigner = new Presigner(HttpUrl.parse("http://10.0.0.1:9000"), ACCESS_KEY, SECRET_KEY, config);
+        String first = presigner.presign(Method.GET, BUCKET, "report.pdf", 2);
+        assertSame(first, presigner.presign(Method.GET, BUCKET, "report.pdf", 2));
+        // 方法和有效期不同的 URL 分别缓存
+        assertNotEquals(first, presigner.presign(Method.PUT, BUCKET, "report.pdf", 2));
+        assertNotEquals(first, presigner.presign(Method.GET, BUCKET, "report.pdf", 3));
+        assertEquals(1, presigner.getHits());
+        assertEquals(3, presigner.getMisses());
+        // 经过有效期的一半后重新签名
+        Thread.sleep(1100);
+        String refreshed = presigner.presign(Method.GET, BUCKET, "report.pdf", 2);
+        assertNotEquals(first, refreshed);
+        assertNotEquals(HttpUrl.parse(first).queryParameter("X-Amz-Date"), HttpUrl.parse(refreshed).queryParameter("X-Amz-Date"));
+        assertEquals(4, presigner.getMisses());
+    }
+
+    @Test
+    public void cacheCanBeDisabled() {
+        MinioConfig.Presign config = new MinioConfig.Presign();
+        config.setCacheMaxEntries(0);
+        Presigner presigner = new Presigner(HttpUrl.parse("http://10.0.0.1:9000"), ACCESS_KEY, SECRET_KEY, config);
+        presigner.presign(Method.GET, BUCKET, "report.pdf", 600);
+        presigner.presign(Method.GET, BUCKET, "report.pdf", 600);
+        assertEquals(0, presigner.getHits());
+        assertEquals(2, presigner.getMisses());
+    }
+}
@@ -0,0 +1,82 @@
+package com.light.minio.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskBatchTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void failureDoesNotInterruptRunningTasksAndAwaitWaitsForThem() throws Exception {
+        TaskBatch batch = new TaskBatch(executor, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        AtomicBoolean sawCancel = new AtomicBoolean();
+        batch.submit(() -> {
+            started.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!batch.isCancelled() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            sawCancel.set(batch.isCancelled());
+            interrupted.set(Thread.currentThread().isInterrupted());
+            Thread.sleep(50);
+            finished.set(true);
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        batch.submit(() -> {
+            throw new IOException("range failed");
+        });
+        try {
+            batch.await();
+            fail("failure not reported");
+        } catch (IOException e) {
+            assertEquals("range failed", e.getMessage());
+        }
+        assertTrue(sawCancel.get());
+        assertFalse(interrupted.get());
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void tasksQueuedAfterFailureAreSkipped() throws Exception {
+        TaskBatch batch = new TaskBatch(executor, 1);
+        AtomicInteger ran = new AtomicInteger();
+        batch.submit(() -> {
+            throw new IOException("failed");
+        });
+        boolean submitted = true;
+        for (int i = 0; i < 10 && submitted; i++) {
+            submitted = batch.submit(() -> {
+                ran.incrementAndGet();
+                return null;
+            });
+        }
+        assertFalse(submitted);
+        try {
+            batch.await();
+            fail("failure not reported");
+        } catch (IOException expected) {
+            // 第一个任务的异常
+        }
+        assertEquals(0, ran.get());
+    }
+}